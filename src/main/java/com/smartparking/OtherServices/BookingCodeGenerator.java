@@ -0,0 +1,178 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.BookingCodeWatermark;
+import com.smartparking.repositories.BookingCodeWatermarkRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+
+/**
+ * Unique, short booking codes with no DB lookup — shared by parking ("BK-")
+ * and rental ("CR-") bookings.
+ *
+ * The old flow generated a random UUID substring and asked the DB whether it
+ * already existed, retrying on a hit: one extra round trip per booking, and more
+ * retries as the table grows. Here uniqueness comes from the construction itself:
+ *
+ *   50 bits = 31 bits seconds since 2025-01-01 | 5 bits node id | 14 bits sequence
+ *
+ * That is 16,384 codes per second per node for 68 years. If a second's sequence
+ * runs out, or the wall clock steps back, the generator keeps counting on the
+ * last second it used instead of waiting or repeating.
+ *
+ * The 50 bits go through a fixed bijective mix (so consecutive codes don't look
+ * consecutive) and are written as 10 Crockford base32 characters — no I, L, O or U,
+ * easy to read out at a gate. The mix is NOT a secret, so 20 random bits follow
+ * as 4 more characters: knowing one code, guessing a neighbour's takes about a
+ * million tries instead of one.
+ *
+ * Rules:
+ *  - Seconds are reserved in blocks of RESERVE_SECONDS in booking_code_watermarks
+ *    before any code in them is issued. A restarted node starts above its mark,
+ *    so a restart or a clock stepped back never repeats a code.
+ *  - Reserving is done ahead of time by reserveAhead() on the scheduler thread,
+ *    outside the lock, once half the block is used. next() never touches the DB,
+ *    so a booking transaction never waits on the pool for a second connection.
+ *  - If the reserved block runs out (the mark could not be written for
+ *    RESERVE_SECONDS / 2), next() refuses to issue rather than issue unbacked codes.
+ *  - Each running instance must have its own smartparking.node-id (0-31).
+ */
+@Service
+public class BookingCodeGenerator {
+
+    public static final String PARKING_PREFIX = "BK-";
+    public static final String RENTAL_PREFIX  = "CR-";
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final long   EPOCH_SECONDS = Instant.parse("2025-01-01T00:00:00Z").getEpochSecond();
+
+    private static final int  NODE_BITS     = 5;
+    private static final int  SEQUENCE_BITS = 14;
+    private static final int  TOTAL_BITS    = 50;
+    private static final long MAX_SEQUENCE  = (1L << SEQUENCE_BITS) - 1;
+    private static final long MASK          = (1L << TOTAL_BITS) - 1;
+    private static final long MIX_MULTIPLIER = 0x2545F4914F6CDL; // odd → invertible mod 2^50
+    private static final int  RANDOM_CHARS   = 4;
+    // One watermark write per minute of issued codes
+    private static final long RESERVE_SECONDS = 60;
+
+    private final BookingCodeWatermarkRepository watermarkRepository;
+    private final SecureRandom random = new SecureRandom();
+    private final long nodeId;
+
+    // Guarded by `this`
+    private long lastSecond    = -1;
+    private long sequence      = 0;
+    private long reservedUntil = -1; // seconds below this are persisted and ours to issue; -1 = not loaded yet
+
+    private boolean loaded; // scheduler thread only
+
+    public BookingCodeGenerator(BookingCodeWatermarkRepository watermarkRepository,
+                                @Value("${smartparking.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId >= (1L << NODE_BITS)) {
+            throw new IllegalArgumentException("smartparking.node-id must be between 0 and 31, got " + nodeId);
+        }
+        this.watermarkRepository = watermarkRepository;
+        this.nodeId = nodeId;
+    }
+
+    public String nextParkingCode() {
+        return PARKING_PREFIX + next();
+    }
+
+    public String nextRentalCode() {
+        return RENTAL_PREFIX + next();
+    }
+
+    /** Next 14-character code body: 10 unique per node, then 4 random. */
+    public String next() {
+        long id;
+        synchronized (this) {
+            long now = currentSecond();
+            if (now > lastSecond) {
+                lastSecond = now;
+                sequence = 0;
+            } else if (++sequence > MAX_SEQUENCE) {
+                // Sequence exhausted (or clock stepped back) — borrow the next second
+                lastSecond++;
+                sequence = 0;
+            }
+            if (lastSecond >= reservedUntil) {
+                throw new RuntimeException("Booking codes are temporarily unavailable. Please try again shortly.");
+            }
+            id = (lastSecond << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+        }
+        return encode(mix(id & MASK), TOTAL_BITS / 5) + encode(random.nextInt(1 << (5 * RANDOM_CHARS)), RANDOM_CHARS);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Watermark
+    // ─────────────────────────────────────────────────────────────────────
+
+    /**
+     * Keeps the persisted mark at least half a block ahead of the seconds being
+     * issued. The DB calls run without holding the lock; reservedUntil only moves
+     * once raiseTo has returned.
+     */
+    @Scheduled(fixedDelayString = "${smartparking.booking-code.reserve-ms:5000}")
+    public void reserveAhead() {
+        try {
+            if (!loaded) {
+                loadWatermark();
+                loaded = true;
+            }
+            long target;
+            synchronized (this) {
+                long from = Math.max(currentSecond(), lastSecond + 1);
+                if (reservedUntil - from > RESERVE_SECONDS / 2) {
+                    return;
+                }
+                target = from + RESERVE_SECONDS;
+            }
+            watermarkRepository.raiseTo((int) nodeId, target);
+            synchronized (this) {
+                reservedUntil = Math.max(reservedUntil, target);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Booking code watermark could not be reserved: " + e.getMessage());
+        }
+    }
+
+    // Whatever the last run may have issued lies below the stored mark — start from there
+    private void loadWatermark() {
+        long mark = watermarkRepository.findById((int) nodeId)
+                .map(BookingCodeWatermark::getReservedUntil)
+                .orElse(0L);
+        synchronized (this) {
+            lastSecond = mark - 1;
+            sequence = MAX_SEQUENCE; // the next code moves on to `mark` at the earliest
+            reservedUntil = mark;
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private static long currentSecond() {
+        return Instant.now().getEpochSecond() - EPOCH_SECONDS;
+    }
+
+    // Bijection on 50 bits: odd multiply then xor-shift — distinct inputs stay distinct
+    private static long mix(long x) {
+        x = (x * MIX_MULTIPLIER) & MASK;
+        return x ^ (x >>> 25);
+    }
+
+    private static String encode(long value, int chars) {
+        char[] out = new char[chars];
+        for (int i = out.length - 1; i >= 0; i--) {
+            out[i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(out);
+    }
+}
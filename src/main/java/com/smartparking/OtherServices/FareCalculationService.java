@@ -19,7 +19,9 @@ import java.time.LocalTime;
  *
  * Fare breakdown:
  *   Base fare     → ₹50 flat fee per job
- *   Distance fare → ₹12 per km (total distance valet drives)
+ *   Distance fare → ₹12 per km (total distance valet drives — straight-line
+ *                   estimate at first, the recorded GPS trail once the job is done,
+ *                   capped at 2.5× the straight-line estimate)
  *   Parking fare  → ₹30 per hour (how long car is stored)
  *   Surge fare    → 1.5× during peak hours (8-10 AM, 5-8 PM)
  */
@@ -32,6 +34,8 @@ public class FareCalculationService {
     private static final double PARKING_RATE_PER_HOUR = 30.0;   // ₹30/hour
     private static final double MIN_PARKING_CHARGE    = 30.0;   // minimum ₹30 parking
     private static final double SURGE_MULTIPLIER      = 1.5;    // 1.5× surge
+    // Real roads wind, but not 2.5× — beyond that the trail is wrong, not the route
+    private static final double MAX_ROUTE_FACTOR      = 2.5;
 
     // Peak hours → surge applies
     private static final LocalTime MORNING_SURGE_START = LocalTime.of(8, 0);
@@ -40,9 +44,12 @@ public class FareCalculationService {
     private static final LocalTime EVENING_SURGE_END   = LocalTime.of(20, 0);
 
     private final ValetFareRepository fareRepository;
+    private final TripTrailStore tripTrailStore;
 
-    public FareCalculationService(ValetFareRepository fareRepository) {
+    public FareCalculationService(ValetFareRepository fareRepository,
+                                  TripTrailStore tripTrailStore) {
         this.fareRepository = fareRepository;
+        this.tripTrailStore = tripTrailStore;
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -77,7 +84,8 @@ public class FareCalculationService {
 
     // ─────────────────────────────────────────────────────────────────────
     //  STEP 2 — Finalize fare when car is returned to customer
-    //  Uses actual hours the car was parked
+    //  Uses actual hours the car was parked, and the distance actually
+    //  driven when the job's GPS trail was recorded
     // ─────────────────────────────────────────────────────────────────────
 
     public ValetFare finalizeFare(Long requestId) {
@@ -104,6 +112,16 @@ public class FareCalculationService {
         );
         fare.setParkingFare(round(parkingFare));
 
+        // Real distance, summed while the trail was recorded — no point scanning here
+        double straightLineKm = fare.getPickupDistanceKm() + fare.getParkingDistanceKm() + fare.getReturnDistanceKm();
+        tripTrailStore.travelledKm(requestId)
+                .filter(km -> km > 0)
+                .ifPresent(km -> {
+                    double billedKm = straightLineKm > 0 ? Math.min(km, straightLineKm * MAX_ROUTE_FACTOR) : km;
+                    fare.setTravelledDistanceKm(round(billedKm));
+                    fare.setDistanceFare(round(billedKm * RATE_PER_KM));
+                });
+
         // Recalculate total
         double raw   = fare.getBaseFare() + fare.getDistanceFare() + parkingFare;
         double total = fare.isSurge() ? raw * fare.getSurgeMultiplier() : raw;
@@ -0,0 +1,119 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.utils.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Short-TTL cache for the public location endpoints (/api/valet/eta,
+ * /api/valet/fare-estimate), keyed by a coarse geohash cell.
+ *
+ * Both are called on every app open, by anonymous users, and each call runs a
+ * valet search plus a lot search with availability checks. Customers standing
+ * in the same ~1.2 × 0.6 km cell (precision 6) get the same answer, computed
+ * once for the cell's centre:
+ *  - Entries live for smartparking.geo-cache.ttl-seconds (15 by default).
+ *  - Single-flight: concurrent misses for one cell share one computation.
+ *  - invalidateAround() drops every cached cell in the precision-1 parent
+ *    cells (~5 km) within smartparking.geo-cache.invalidate-km (5 by default)
+ *    of a valet or lot whose availability changed — a valet going on/offline,
+ *    a lot filling up or freeing up, a lot being added or closed. The change
+ *    point's own parent cell plus its neighbours, so a change just across a
+ *    cell border is not missed. Answers farther out, and ordinary GPS moves,
+ *    are left to the TTL.
+ *  - Failed computations are never cached.
+ *
+ * Distances in a cached answer are measured from the cell centre, so they can
+ * be off by up to half a cell — fine for an estimate shown before booking.
+ */
+@Service
+public class GeoResponseCache {
+
+    private final int precision;
+    private final long ttlMillis;
+    private final double invalidateKm;
+
+    private final Map<String, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    public GeoResponseCache(@Value("${smartparking.geo-cache.precision:6}") int precision,
+                            @Value("${smartparking.geo-cache.ttl-seconds:15}") long ttlSeconds,
+                            @Value("${smartparking.geo-cache.invalidate-km:5}") double invalidateKm) {
+        if (precision < 2 || precision > 9) {
+            throw new IllegalArgumentException("smartparking.geo-cache.precision must be between 2 and 9");
+        }
+        this.precision = precision;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.invalidateKm = invalidateKm;
+    }
+
+    private record Entry(Object value, long expiresAtMillis) {}
+
+    /**
+     * Returns the cached answer for the cell containing (lat, lon), or computes it
+     * with loader(cellCentreLat, cellCentreLon).
+     *
+     * @param endpoint logical name, e.g. "eta" — one cache slot per endpoint per cell
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, double lat, double lon, BiFunction<Double, Double, T> loader) {
+        String cell = GeoUtils.geohash(lat, lon, precision);
+        String key = cell + "|" + endpoint;
+        while (true) {
+            CompletableFuture<Entry> mine = new CompletableFuture<>();
+            CompletableFuture<Entry> existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                return (T) load(key, cell, mine, loader).value();
+            }
+            Entry entry;
+            try {
+                entry = existing.join();
+            } catch (CompletionException e) {
+                // The leader failed — its waiters share the error; the next call starts a fresh load
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            if (entry.expiresAtMillis() > System.currentTimeMillis()) {
+                return (T) entry.value();
+            }
+            entries.remove(key, existing); // expired — next loop iteration reloads
+        }
+    }
+
+    /** Availability changed at (lat, lon) — drop every cached cell in the parent cells around it. */
+    public void invalidateAround(double lat, double lon) {
+        Set<String> parents = GeoUtils.geohashesCovering(lat, lon, invalidateKm, precision - 1);
+        entries.keySet().removeIf(key -> parents.contains(key.substring(0, precision - 1)));
+    }
+
+    // Expired entries are also dropped lazily on read; this bounds memory for cells nobody asks about again
+    @Scheduled(fixedDelayString = "${smartparking.geo-cache.purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(f -> f.isDone() && !f.isCompletedExceptionally()
+                && f.join().expiresAtMillis() <= now);
+    }
+
+    private <T> Entry load(String key, String cell, CompletableFuture<Entry> mine,
+                           BiFunction<Double, Double, T> loader) {
+        try {
+            double[] centre = GeoUtils.geohashCenter(cell);
+            Entry entry = new Entry(loader.apply(centre[0], centre[1]), System.currentTimeMillis() + ttlMillis);
+            mine.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            entries.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
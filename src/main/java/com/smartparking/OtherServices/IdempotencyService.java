@@ -0,0 +1,275 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.IdempotencyRecord;
+import com.smartparking.exceptions.DuplicateResourceException;
+import com.smartparking.exceptions.IdempotencyKeyReuseException;
+import com.smartparking.repositories.IdempotencyRecordRepository;
+import com.smartparking.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for POST endpoints that create things.
+ *
+ * Mobile clients on flaky networks retry; without this every retry ran the
+ * whole booking again — another slot, another set of notifications. With a key:
+ *  - The first request claims the key — a PENDING row in idempotency_keys —
+ *    then runs, and its 2xx response fills the row, all in ONE transaction.
+ *    The booking and the key commit together or not at all.
+ *  - A retry with the same key gets the stored status + body back, nothing runs.
+ *  - Duplicates that arrive WHILE the first is still running wait for it and
+ *    share its response (or its exception) — one execution, many replies. On
+ *    another instance the claim itself blocks on the unique index until the
+ *    first transaction ends, then replays its response.
+ *  - The same key with a different request body is rejected with 422.
+ *
+ * Storage is two layers: a bounded in-memory LRU for the hot path, and the
+ * idempotency_keys table so retries survive a restart. Records expire after
+ * smartparking.idempotency.ttl-hours (24 by default).
+ *
+ * Keys are scoped by endpoint and caller, so two users can't read each other's
+ * responses by sending the same key. Error responses are never stored — the
+ * claim is released and the client is expected to fix the request and retry
+ * with the same key.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    // Map keys sorted, so the same body always hashes the same
+    private final ObjectWriter canonicalWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlHours;
+    private final long waitSeconds;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> recent;
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${smartparking.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${smartparking.idempotency.wait-seconds:15}") long waitSeconds,
+                              @Value("${smartparking.idempotency.cache-size:10000}") int cacheSize) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlHours = ttlHours;
+        this.waitSeconds = waitSeconds;
+        this.recent = Collections.synchronizedMap(
+                new LinkedHashMap<>(256, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                        return size() > cacheSize;
+                    }
+                });
+    }
+
+    /**
+     * Runs the action at most once per (endpoint, caller, key).
+     *
+     * The action runs inside a transaction (the caller's, or a new one), so
+     * any @Transactional service it calls commits together with the key.
+     *
+     * @param endpoint logical name of the operation, e.g. "booking-reserve"
+     * @param key      the client's Idempotency-Key header; null/blank runs the action normally
+     * @param request  the request body — a reused key must come with the same body
+     * @param bodyType type to read a stored body back as
+     * @throws IdempotencyKeyReuseException if the key was used before with a different body
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String endpoint, String key, Object request, Class<T> bodyType,
+                                         Supplier<? extends ResponseEntity<? extends T>> action) {
+        if (key == null || key.isBlank()) {
+            return (ResponseEntity<T>) action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+        String scopedKey = endpoint + "|" + currentCaller() + "|" + key.trim();
+        String requestHash = hash(request);
+
+        ResponseEntity<T> replay = lookupCached(scopedKey, requestHash);
+        if (replay != null) {
+            return replay;
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            return (ResponseEntity<T>) await(running.response());
+        }
+
+        try {
+            return transactionTemplate.execute(status -> runClaimed(scopedKey, requestHash, bodyType, action, mine));
+        } catch (RuntimeException e) {
+            fail(scopedKey, mine, e);
+            throw e;
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Hourly purge of expired keys
+    // ─────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${smartparking.idempotency.purge-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (recent) {
+            recent.values().removeIf(stored -> !stored.expiresAt().isAfter(now));
+        }
+        recordRepository.deleteExpired(now);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> runClaimed(String scopedKey, String requestHash, Class<T> bodyType,
+                                             Supplier<? extends ResponseEntity<? extends T>> action,
+                                             InFlight mine) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusHours(ttlHours);
+        recordRepository.deleteIfExpired(scopedKey, now);
+        if (recordRepository.claim(scopedKey, requestHash, expiresAt) == 0) {
+            // Another instance claimed the key and its transaction has ended — replay what it stored
+            ResponseEntity<T> replay = lookupStored(scopedKey, requestHash, bodyType);
+            if (replay == null) {
+                throw new DuplicateResourceException(
+                        "A request with this " + HEADER + " is still being processed. Retry shortly.");
+            }
+            finish(scopedKey, mine, replay);
+            return replay;
+        }
+
+        ResponseEntity<T> response = (ResponseEntity<T>) action.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            recordRepository.release(scopedKey);
+            finish(scopedKey, mine, response);
+            return response;
+        }
+
+        StoredResponse stored = new StoredResponse(requestHash, response.getStatusCode().value(),
+                response.getBody(), expiresAt);
+        recordRepository.complete(scopedKey, stored.statusCode(),
+                stored.body() == null ? null : objectMapper.writeValueAsString(stored.body()));
+        // Waiters and the cache only see the response once the work is committed
+        TransactionHooks.afterCommit(() -> {
+            recent.put(scopedKey, stored);
+            finish(scopedKey, mine, response);
+        });
+        TransactionHooks.onRollback(() -> fail(scopedKey, mine,
+                new RuntimeException("The original request was rolled back. Please retry.")));
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> lookupCached(String scopedKey, String requestHash) {
+        StoredResponse stored = recent.get(scopedKey);
+        if (stored == null || !stored.expiresAt().isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        checkSameRequest(stored.requestHash(), requestHash);
+        return ResponseEntity.status(stored.statusCode()).body((T) stored.body());
+    }
+
+    private <T> ResponseEntity<T> lookupStored(String scopedKey, String requestHash, Class<T> bodyType) {
+        IdempotencyRecord record = recordRepository.findByScopedKey(scopedKey)
+                .filter(r -> r.getStatusCode() != IdempotencyRecord.PENDING)
+                .orElse(null);
+        if (record == null) {
+            return null;
+        }
+        checkSameRequest(record.getRequestHash(), requestHash);
+        T body = record.getResponseBody() == null
+                ? null
+                : objectMapper.readValue(record.getResponseBody(), bodyType);
+        recent.put(scopedKey, new StoredResponse(record.getRequestHash(), record.getStatusCode(), body,
+                record.getExpiresAt()));
+        return ResponseEntity.status(record.getStatusCode()).body(body);
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(
+                    "This " + HEADER + " was already used with a different request body.");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = canonicalWriter.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> running) {
+        try {
+            return running.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new DuplicateResourceException(
+                    "A request with this " + HEADER + " is still being processed. Retry shortly.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the original request.");
+        }
+    }
+
+    private void finish(String scopedKey, InFlight mine, ResponseEntity<?> response) {
+        inFlight.remove(scopedKey, mine);
+        mine.response().complete(response);
+    }
+
+    private void fail(String scopedKey, InFlight mine, RuntimeException e) {
+        inFlight.remove(scopedKey, mine);
+        mine.response().completeExceptionally(e);
+    }
+
+    private static String currentCaller() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : "anonymous";
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<ResponseEntity<?>> response) {}
+
+    private record StoredResponse(String requestHash, int statusCode, Object body, LocalDateTime expiresAt) {}
+}
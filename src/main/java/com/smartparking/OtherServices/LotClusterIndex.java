@@ -0,0 +1,179 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.dtos.response.LotClusterDTO;
+import com.smartparking.entities.nums.ParkingLotStatus;
+import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.repositories.ParkingLotRepository;
+import com.smartparking.repositories.SlotRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-aggregated map clusters of ACTIVE parking lots, one grid per zoom level.
+ *
+ * The map used to fetch a fixed number of nearby lots and cluster them in the
+ * browser — too few at city zoom, too many when zoomed out. Here every zoom
+ * level z has a grid of cells CELLS_PER_TILE times finer than a map tile
+ * (360 / 2^z degrees), and each cell already holds its lot count, coordinate
+ * sums (for the centroid) and total AVAILABLE slots.
+ *
+ * A viewport query walks only the cells inside the box — at most
+ * MAX_VIEWPORT_CELLS, coarsening the level if the box is too big for the zoom —
+ * so payload size and latency stay flat whatever the zoom.
+ *
+ * Rebuilt from two aggregate queries at startup and every
+ * smartparking.lot-clusters.refresh-ms (30 s by default); slot counts on the
+ * map can lag by that much.
+ */
+@Service
+public class LotClusterIndex {
+
+    private static final int MAX_ZOOM = 20;
+    private static final int CELLS_PER_TILE = 4;
+    private static final int MAX_VIEWPORT_CELLS = 1024;
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final SlotRepository slotRepository;
+
+    private volatile List<Map<Long, Cluster>> levels = emptyLevels();
+
+    public LotClusterIndex(ParkingLotRepository parkingLotRepository,
+                           SlotRepository slotRepository) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.slotRepository = slotRepository;
+    }
+
+    // Mutable only while a level is being built; read-only once published
+    private static final class Cluster {
+        int lotCount;
+        double sumLat;
+        double sumLon;
+        long availableSlots;
+        long lastLotId;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Viewport query
+    // ─────────────────────────────────────────────────────────────────────
+
+    public List<LotClusterDTO> clusters(double minLat, double maxLat, double minLng, double maxLng, int zoom) {
+        if (minLat > maxLat) {
+            throw new IllegalArgumentException("minLat must not be greater than maxLat.");
+        }
+        // A viewport across the antimeridian arrives with minLng > maxLng
+        double lngSpan = maxLng >= minLng ? maxLng - minLng : maxLng + 360 - minLng;
+
+        int level = Math.max(0, Math.min(zoom, MAX_ZOOM));
+        while (level > 0 && cellCount(minLat, maxLat, lngSpan, level) > MAX_VIEWPORT_CELLS) {
+            level--;
+        }
+
+        List<Map<Long, Cluster>> snapshot = levels;
+        Map<Long, Cluster> grid = snapshot.get(level);
+        double cellDeg = cellDeg(level);
+        int rowMin = row(minLat, cellDeg);
+        int rowMax = row(maxLat, cellDeg);
+        int colMin = column(minLng, cellDeg);
+        int colCount = (int) Math.floor(lngSpan / cellDeg) + 2;
+        int columns = totalColumns(cellDeg);
+
+        List<LotClusterDTO> result = new ArrayList<>();
+        for (int r = rowMin; r <= rowMax; r++) {
+            for (int c = 0; c < colCount && c < columns; c++) {
+                Cluster cluster = grid.get(key(r, Math.floorMod(colMin + c, columns)));
+                if (cluster != null) {
+                    result.add(toDTO(cluster));
+                }
+            }
+        }
+        return result;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Rebuild — startup + every 30 seconds by default
+    // ─────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${smartparking.lot-clusters.refresh-ms:30000}",
+               initialDelayString = "${smartparking.lot-clusters.refresh-ms:30000}")
+    public void rebuild() {
+        Map<Long, Long> availableByLot = new HashMap<>();
+        for (Object[] row : slotRepository.countByLotWithStatus(SlotStatus.AVAILABLE)) {
+            availableByLot.put((Long) row[0], (Long) row[1]);
+        }
+
+        List<Map<Long, Cluster>> rebuilt = emptyLevels();
+        for (Object[] row : parkingLotRepository.findLotPointsByStatus(ParkingLotStatus.ACTIVE)) {
+            long lotId = (Long) row[0];
+            double lat = (Double) row[1];
+            double lon = (Double) row[2];
+            long available = availableByLot.getOrDefault(lotId, 0L);
+            for (int level = 0; level <= MAX_ZOOM; level++) {
+                double cellDeg = cellDeg(level);
+                Cluster cluster = rebuilt.get(level).computeIfAbsent(
+                        key(row(lat, cellDeg), column(lon, cellDeg)), k -> new Cluster());
+                cluster.lotCount++;
+                cluster.sumLat += lat;
+                cluster.sumLon += lon;
+                cluster.availableSlots += available;
+                cluster.lastLotId = lotId;
+            }
+        }
+        levels = rebuilt;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private static LotClusterDTO toDTO(Cluster c) {
+        return new LotClusterDTO(
+                c.sumLat / c.lotCount,
+                c.sumLon / c.lotCount,
+                c.lotCount,
+                c.availableSlots,
+                c.lotCount == 1 ? c.lastLotId : null);
+    }
+
+    private static List<Map<Long, Cluster>> emptyLevels() {
+        List<Map<Long, Cluster>> levels = new ArrayList<>(MAX_ZOOM + 1);
+        for (int i = 0; i <= MAX_ZOOM; i++) {
+            levels.add(new HashMap<>());
+        }
+        return levels;
+    }
+
+    private static long cellCount(double minLat, double maxLat, double lngSpan, int level) {
+        double cellDeg = cellDeg(level);
+        long rows = (long) Math.floor((maxLat - minLat) / cellDeg) + 2;
+        long cols = (long) Math.floor(lngSpan / cellDeg) + 2;
+        return rows * cols;
+    }
+
+    private static double cellDeg(int level) {
+        return 360.0 / ((1L << level) * CELLS_PER_TILE);
+    }
+
+    private static int totalColumns(double cellDeg) {
+        return (int) Math.round(360.0 / cellDeg);
+    }
+
+    private static int row(double lat, double cellDeg) {
+        return (int) Math.floor((Math.max(-90.0, Math.min(90.0, lat)) + 90.0) / cellDeg);
+    }
+
+    private static int column(double lon, double cellDeg) {
+        return Math.floorMod((int) Math.floor((lon + 180.0) / cellDeg), totalColumns(cellDeg));
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | column;
+    }
+}
@@ -1,16 +1,22 @@
 package com.smartparking.OtherServices;
 
+import com.smartparking.entities.nums.SlotStatus;
 import com.smartparking.entities.parking.ParkingLot;
 import com.smartparking.entities.parking.Slot;
 import com.smartparking.repositories.ParkingLotRepository;
 import com.smartparking.repositories.SlotRepository;
+import com.smartparking.utils.GeoGridIndex;
 import com.smartparking.utils.GeoUtils;
 import com.smartparking.exceptions.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class NearestLotService {
@@ -20,11 +26,17 @@ public class NearestLotService {
 
     private final ParkingLotRepository parkingLotRepository;
     private final SlotRepository slotRepository;
+    private final ParkingLotSpatialIndex parkingLotSpatialIndex;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
 
     public NearestLotService(ParkingLotRepository parkingLotRepository,
-                             SlotRepository slotRepository) {
+                             SlotRepository slotRepository,
+                             ParkingLotSpatialIndex parkingLotSpatialIndex,
+                             SlotAvailabilityIndex slotAvailabilityIndex) {
         this.parkingLotRepository = parkingLotRepository;
         this.slotRepository = slotRepository;
+        this.parkingLotSpatialIndex = parkingLotSpatialIndex;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -39,10 +51,9 @@ public class NearestLotService {
      * with security features (CCTV, guard, etc.)
      *
      * Steps:
-     * 1. Get all ACTIVE/VERIFIED parking lots
-     * 2. Filter to only lots with available slots
-     * 3. Sort by distance from user's pickup location
-     * 4. Return the nearest one
+     * 1. Ask ParkingLotSpatialIndex for ACTIVE lots within 15 km, nearest first
+     * 2. Check availability for all of them at once (index or one grouped query)
+     * 3. Load only the nearest lot that has a free slot, plus that one slot
      *
      * @param userLat  User's pickup latitude
      * @param userLon  User's pickup longitude
@@ -50,48 +61,17 @@ public class NearestLotService {
      */
     public NearestLotResult findNearestAvailableLot(double userLat, double userLon) {
 
-        // Get all verified/active lots
-        // Assumes ParkingLot has a 'status' field with ACTIVE value
-        List<ParkingLot> verifiedLots =
-                parkingLotRepository.findByStatus(
-                        com.smartparking.entities.nums.ParkingLotStatus.ACTIVE
-                );
+        // Active lots within the search radius, nearest first — straight from the spatial index
+        List<GeoGridIndex.Hit<Long>> nearby =
+                parkingLotSpatialIndex.withinRadius(userLat, userLon, MAX_LOT_SEARCH_RADIUS_KM);
 
-        if (verifiedLots.isEmpty()) {
+        if (nearby.isEmpty()) {
             throw new ResourceNotFoundException(
-                    "No verified parking lots found on the platform."
+                    "No verified parking lots found within " + MAX_LOT_SEARCH_RADIUS_KM + " km."
             );
         }
 
-        // Find nearest lot that has available slots
-        Optional<NearestLotResult> result = verifiedLots.stream()
-                // Only lots within search radius
-                .filter(lot -> lot.getLatitude() != null && lot.getLongitude() != null)
-                .filter(lot -> GeoUtils.isWithinRadius(
-                        userLat, userLon,
-                        lot.getLatitude(), lot.getLongitude(),
-                        MAX_LOT_SEARCH_RADIUS_KM
-                ))
-                // Map to result with distance
-                .map(lot -> {
-                    double distKm = GeoUtils.calculateDistanceKm(
-                            userLat, userLon,
-                            lot.getLatitude(), lot.getLongitude()
-                    );
-                    // Find first available slot in this lot
-                    Optional<Slot> availableSlot = slotRepository
-                            .findFirstByParkingLotIdAndStatus(
-                                    lot.getId(),
-                                    com.smartparking.entities.nums.SlotStatus.AVAILABLE
-                            );
-                    return new NearestLotResult(lot, availableSlot.orElse(null), distKm);
-                })
-                // Only lots that have at least one available slot
-                .filter(r -> r.availableSlot() != null)
-                // Pick the nearest
-                .min(Comparator.comparingDouble(NearestLotResult::distanceKm));
-
-        return result.orElseThrow(() ->
+        return availableLots(nearby, 1).stream().findFirst().orElseThrow(() ->
                 new ResourceNotFoundException(
                         "No parking lots with available slots found within " +
                                 MAX_LOT_SEARCH_RADIUS_KM + " km. " +
@@ -109,33 +89,52 @@ public class NearestLotService {
      * Could be used to show the user "Here are the lots we'll park your car at"
      */
     public List<NearestLotResult> findTop3NearestLots(double userLat, double userLon) {
-        List<ParkingLot> verifiedLots =
-                parkingLotRepository.findByStatus(
-                        com.smartparking.entities.nums.ParkingLotStatus.ACTIVE
-                );
-
-        return verifiedLots.stream()
-                .filter(lot -> lot.getLatitude() != null && lot.getLongitude() != null)
-                .filter(lot -> GeoUtils.isWithinRadius(
-                        userLat, userLon,
-                        lot.getLatitude(), lot.getLongitude(),
-                        MAX_LOT_SEARCH_RADIUS_KM
-                ))
-                .map(lot -> {
-                    double distKm = GeoUtils.calculateDistanceKm(
-                            userLat, userLon,
-                            lot.getLatitude(), lot.getLongitude()
-                    );
-                    Optional<Slot> slot = slotRepository.findFirstByParkingLotIdAndStatus(
-                            lot.getId(),
-                            com.smartparking.entities.nums.SlotStatus.AVAILABLE
-                    );
-                    return new NearestLotResult(lot, slot.orElse(null), distKm);
-                })
-                .filter(r -> r.availableSlot() != null)
-                .sorted(Comparator.comparingDouble(NearestLotResult::distanceKm))
-                .limit(3)
+        List<GeoGridIndex.Hit<Long>> nearby =
+                parkingLotSpatialIndex.withinRadius(userLat, userLon, MAX_LOT_SEARCH_RADIUS_KM);
+        return availableLots(nearby, 3);
+    }
+
+    /**
+     * Picks the first `wanted` candidates that have an available slot.
+     *
+     * Availability for ALL candidates is answered at once — from
+     * SlotAvailabilityIndex when it's warm, otherwise with one grouped query —
+     * instead of one slot query per lot. Only the winners are loaded, together
+     * with one concrete slot each.
+     */
+    private List<NearestLotResult> availableLots(List<GeoGridIndex.Hit<Long>> nearby, int wanted) {
+        if (nearby.isEmpty()) {
+            return List.of();
+        }
+        List<Long> candidateIds = nearby.stream().map(GeoGridIndex.Hit::value).toList();
+        Set<Long> open = slotAvailabilityIndex.isReady()
+                ? slotAvailabilityIndex.lotsWithAvailable(candidateIds)
+                : new HashSet<>(slotRepository.findLotIdsWithStatus(candidateIds, SlotStatus.AVAILABLE));
+
+        // Candidates are already sorted by distance
+        List<GeoGridIndex.Hit<Long>> winners = nearby.stream()
+                .filter(hit -> open.contains(hit.value()))
+                .limit(wanted)
                 .toList();
+        if (winners.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ParkingLot> lots = parkingLotRepository
+                .findAllById(winners.stream().map(GeoGridIndex.Hit::value).toList())
+                .stream()
+                .collect(Collectors.toMap(ParkingLot::getId, Function.identity()));
+
+        List<NearestLotResult> results = new ArrayList<>(winners.size());
+        for (GeoGridIndex.Hit<Long> hit : winners) {
+            ParkingLot lot = lots.get(hit.value());
+            if (lot == null) {
+                continue;
+            }
+            // A slot may have gone since the availability check — then the lot is simply skipped
+            slotRepository.findFirstByParkingLotIdAndStatus(lot.getId(), SlotStatus.AVAILABLE)
+                    .ifPresent(slot -> results.add(new NearestLotResult(lot, slot, hit.distanceKm())));
+        }
+        return results;
     }
 
     // ─────────────────────────────────────────────────────────────────────
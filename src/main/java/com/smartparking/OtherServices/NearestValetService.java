@@ -6,8 +6,6 @@ import com.smartparking.repositories.ValetRepository;
 import com.smartparking.utils.GeoUtils;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -17,9 +15,15 @@ public class NearestValetService {
     private static final double MAX_SEARCH_RADIUS_KM = 20.0;
 
     private final ValetRepository valetRepository;
+    private final ValetLocationStore valetLocationStore;
+    private final ValetTrackingService valetTrackingService;
 
-    public NearestValetService(ValetRepository valetRepository) {
+    public NearestValetService(ValetRepository valetRepository,
+                               ValetLocationStore valetLocationStore,
+                               ValetTrackingService valetTrackingService) {
         this.valetRepository = valetRepository;
+        this.valetLocationStore = valetLocationStore;
+        this.valetTrackingService = valetTrackingService;
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -28,51 +32,27 @@ public class NearestValetService {
 
     /**
      * How it works:
-     * 1. Get all valets where isAvailableNow=true AND lat/lon is set
-     * 2. For each valet, calculate distance to customer using Haversine
-     * 3. Filter to only valets within 20 km
-     * 4. Return the closest one
-     *
-     * Uses your existing Valet entity fields:
-     *   - valet.isAvailableNow()
-     *   - valet.getCurrentLatitude()
-     *   - valet.getCurrentLongitude()
+     * 1. Ask ValetLocationStore's grid for the nearest available valet, expanding
+     *    rings of cells around the pickup until nothing closer can exist
+     * 2. Stop at 20 km
+     * 3. Load and return that one valet
      */
     public Valet findNearestValet(double pickupLat, double pickupLon) {
 
-        List<Valet> availableValets = valetRepository.findAllAvailableValets();
-
-        if (availableValets.isEmpty()) {
+        if (!valetLocationStore.hasAvailableValets()) {
             throw new ResourceNotFoundException(
                     "No valets are available right now. Please try again shortly."
             );
         }
 
-        Optional<Valet> nearest = availableValets.stream()
-                .filter(v ->
-                        // Only valets within max search radius
-                        GeoUtils.isWithinRadius(
-                                pickupLat, pickupLon,
-                                v.getCurrentLatitude(),
-                                v.getCurrentLongitude(),
-                                MAX_SEARCH_RADIUS_KM
-                        )
-                )
-                .min(Comparator.comparingDouble(v ->
-                        // Sort by distance — closest first
-                        GeoUtils.calculateDistanceKm(
-                                pickupLat, pickupLon,
-                                v.getCurrentLatitude(),
-                                v.getCurrentLongitude()
-                        )
-                ));
-
-        return nearest.orElseThrow(() ->
+        ValetETA nearest = nearestWithin(pickupLat, pickupLon).orElseThrow(() ->
                 new ResourceNotFoundException(
                         "No valets available within " + (int) MAX_SEARCH_RADIUS_KM
                                 + " km of your location. Try again later."
                 )
         );
+        return valetRepository.findById(nearest.valetId())
+                .orElseThrow(() -> new ResourceNotFoundException("Valet not found!"));
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -84,37 +64,34 @@ public class NearestValetService {
      * Shown to user as: "Valet is 2.3 km away, arrives in ~6 mins"
      */
     public ValetETA getNearestValetETA(double pickupLat, double pickupLon) {
-
-        List<Valet> availableValets = valetRepository.findAllAvailableValets();
-
-        return availableValets.stream()
-                .filter(v -> v.getCurrentLatitude() != null && v.getCurrentLongitude() != null)
-                .map(v -> {
-                    double dist = GeoUtils.calculateDistanceKm(
-                            pickupLat, pickupLon,
-                            v.getCurrentLatitude(),
-                            v.getCurrentLongitude()
-                    );
-                    return new ValetETA(v.getId(), dist, GeoUtils.estimatedMinutes(dist));
-                })
-                .filter(eta -> eta.distanceKm() <= MAX_SEARCH_RADIUS_KM)
-                .min(Comparator.comparingDouble(ValetETA::distanceKm))
+        return nearestWithin(pickupLat, pickupLon)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "No valets available near your location."
                 ));
     }
 
+    private Optional<ValetETA> nearestWithin(double pickupLat, double pickupLon) {
+        return valetLocationStore.nearestAvailable(pickupLat, pickupLon, 1, MAX_SEARCH_RADIUS_KM)
+                .stream()
+                .findFirst()
+                .map(hit -> new ValetETA(hit.value().valetId(), hit.distanceKm(),
+                        GeoUtils.estimatedMinutes(hit.distanceKm())));
+    }
+
     // ─────────────────────────────────────────────────────────────────────
     //  Mark valet BUSY when assigned to a job
     //  Mark valet FREE when job is completed
     // ─────────────────────────────────────────────────────────────────────
 
+    // Written through immediately — availability decides dispatch, so it can't wait for a flush
     public void markValetBusy(Long valetId) {
         valetRepository.markAsBusy(valetId);
+        valetLocationStore.setAvailable(valetId, false);
     }
 
     public void markValetFree(Long valetId) {
         valetRepository.markAsFree(valetId);
+        valetLocationStore.setAvailable(valetId, true);
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -123,12 +100,14 @@ public class NearestValetService {
 
     /**
      * Called from ValetLocationController.
-     * Uses the updateLocation() query in ValetRepository
-     * to update the Valet's currentLatitude, currentLongitude, isAvailableNow.
+     * Only touches ValetLocationStore — the DB row is updated by its
+     * write-behind flush, coalesced with the valet's other pings. If the valet
+     * is on a live job the ping is also forwarded to the customer's tracking topic.
      */
     public void updateValetLocation(Long valetId, double lat,
                                     double lon, boolean available) {
-        valetRepository.updateLocation(valetId, lat, lon, available);
+        valetLocationStore.update(valetId, lat, lon, available);
+        valetTrackingService.onLocation(valetId, lat, lon);
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -136,6 +115,11 @@ public class NearestValetService {
     // ─────────────────────────────────────────────────────────────────────
 
     public double getValetDistanceTo(Valet valet, double lat, double lon) {
+        // Prefer the live position — the entity's columns lag by up to one flush
+        Optional<ValetLocationStore.LiveLocation> live = valetLocationStore.get(valet.getId());
+        if (live.isPresent()) {
+            return GeoUtils.calculateDistanceKm(lat, lon, live.get().latitude(), live.get().longitude());
+        }
         if (valet.getCurrentLatitude() == null || valet.getCurrentLongitude() == null) {
             return Double.MAX_VALUE;
         }
@@ -152,6 +152,14 @@ public class NotificationService {
                 "BOOKING");
     }
 
+    public void notifyBulkBookingConfirmed(Long customerId, int slotCount, String lotNames) {
+        notify(customerId,
+                "Group Booking Confirmed",
+                slotCount + " slots reserved at " + lotNames
+                        + ". Each booking code is listed in My Bookings.",
+                "BOOKING");
+    }
+
     // ── Parking Lot Admin ───────────────────────────────────────────────────
 
     public void notifyAdminNewBooking(Long adminId, String bookingCode, String slotNumber) {
@@ -161,6 +169,13 @@ public class NotificationService {
                 "BOOKING");
     }
 
+    public void notifyAdminBulkBooking(Long adminId, int slotCount, String lotName) {
+        notify(adminId,
+                "New Group Booking",
+                "A group booking reserved " + slotCount + " slots at " + lotName + ".",
+                "BOOKING");
+    }
+
     public void notifyAdminBookingCancelled(Long adminId, String bookingCode, String slotNumber) {
         notify(adminId,
                 "Booking Cancelled",
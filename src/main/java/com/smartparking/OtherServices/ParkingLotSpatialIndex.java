@@ -0,0 +1,120 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.ParkingLotStatus;
+import com.smartparking.entities.parking.ParkingLot;
+import com.smartparking.repositories.ParkingLotRepository;
+import com.smartparking.utils.GeoGridIndex;
+import com.smartparking.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory spatial index of ACTIVE parking lots with coordinates.
+ *
+ * NearestLotService used to load every ACTIVE lot and run Haversine on each —
+ * linear in the number of lots, on every ETA and fare-estimate call. Lots now
+ * sit in a GeoGridIndex, so a 15 km search only touches the few cells around
+ * the caller.
+ *
+ * Rules:
+ *  - ParkingLotServiceImpl calls onLotSaved / onLotDeleted on every create,
+ *    move, status change and delete. Changes apply AFTER the transaction commits.
+ *  - reconcile() rebuilds the index from the DB at startup and every 10 minutes,
+ *    which heals edits made outside the service.
+ *  - Every change, and every lot filling up or freeing up (reported by
+ *    SlotAvailabilityIndex), invalidates GeoResponseCache around the lot.
+ *  - Only lot ids are stored. Callers load the entities they actually return.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class ParkingLotSpatialIndex {
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final GeoResponseCache geoResponseCache;
+    private final GeoGridIndex<Long> grid;
+
+    public ParkingLotSpatialIndex(ParkingLotRepository parkingLotRepository,
+                                  GeoResponseCache geoResponseCache,
+                                  @Value("${smartparking.lot-index.cell-deg:0.02}") double cellDeg) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.geoResponseCache = geoResponseCache;
+        this.grid = new GeoGridIndex<>(cellDeg);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Queries
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Active lots within radiusKm, nearest first. */
+    public List<GeoGridIndex.Hit<Long>> withinRadius(double lat, double lon, double radiusKm) {
+        return grid.withinRadius(lat, lon, radiusKm);
+    }
+
+    /** Up to k active lots within maxKm, nearest first. */
+    public List<GeoGridIndex.Hit<Long>> nearest(double lat, double lon, int k, double maxKm) {
+        return grid.nearest(lat, lon, k, maxKm, lotId -> true);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Sync — called by ParkingLotServiceImpl
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Lot created, moved or changed status — indexed only while ACTIVE with coordinates. */
+    public void onLotSaved(ParkingLot lot) {
+        Long lotId = lot.getId();
+        boolean indexable = lot.getStatus() == ParkingLotStatus.ACTIVE
+                && lot.getLatitude() != null && lot.getLongitude() != null;
+        if (indexable) {
+            double lat = lot.getLatitude();
+            double lon = lot.getLongitude();
+            TransactionHooks.afterCommit(() -> {
+                onAvailabilityChanged(lotId); // old position, if it moved
+                grid.put(lotId, lat, lon, lotId);
+                geoResponseCache.invalidateAround(lat, lon);
+            });
+        } else {
+            TransactionHooks.afterCommit(() -> {
+                onAvailabilityChanged(lotId);
+                grid.remove(lotId);
+            });
+        }
+    }
+
+    public void onLotDeleted(Long lotId) {
+        TransactionHooks.afterCommit(() -> {
+            onAvailabilityChanged(lotId);
+            grid.remove(lotId);
+        });
+    }
+
+    /** The lot filled up or freed up — cached ETA / fare answers around it are stale. */
+    public void onAvailabilityChanged(Long lotId) {
+        GeoGridIndex.Point<Long> point = grid.get(lotId);
+        if (point != null) {
+            geoResponseCache.invalidateAround(point.lat(), point.lon());
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Reconcile with the DB — startup + every 10 minutes by default
+    // ─────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${smartparking.lot-index.reconcile-ms:600000}",
+               initialDelayString = "${smartparking.lot-index.reconcile-ms:600000}")
+    public void reconcile() {
+        List<GeoGridIndex.Point<Long>> points = new ArrayList<>();
+        for (Object[] row : parkingLotRepository.findLotPointsByStatus(ParkingLotStatus.ACTIVE)) {
+            Long lotId = (Long) row[0];
+            points.add(new GeoGridIndex.Point<>(lotId, (Double) row[1], (Double) row[2], lotId));
+        }
+        grid.replaceAll(points);
+    }
+}
@@ -0,0 +1,160 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.RentalCarStatus;
+import com.smartparking.entities.nums.VehicleType;
+import com.smartparking.entities.rental.RentalCar;
+import com.smartparking.repositories.RentalCarRepository;
+import com.smartparking.utils.GeoGridIndex;
+import com.smartparking.utils.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index of rental car pickup locations, partitioned by
+ * RentalCarStatus and VehicleType.
+ *
+ * GET /api/rental-cars/nearby used to sort the rental_cars table by Haversine
+ * on every request. Each (status, type) partition is now its own GeoGridIndex,
+ * so "5 nearest AVAILABLE bikes" is a ring search over one small grid, and an
+ * untyped search merges the per-type answers.
+ *
+ * Rules:
+ *  - RentalCarController calls onCarSaved whenever a car is listed, booked,
+ *    returned or has its status toggled. Changes apply AFTER the commit; a car
+ *    always lives in exactly one partition.
+ *  - Cars without a pickup location are not indexed.
+ *  - reconcile() rebuilds every partition from the DB at startup and every
+ *    10 minutes, which heals edits made elsewhere.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class RentalCarSpatialIndex {
+
+    private final RentalCarRepository rentalCarRepository;
+    private final double cellDeg;
+
+    private volatile Map<RentalCarStatus, Map<VehicleType, GeoGridIndex<Long>>> partitions;
+    // Where each car currently lives, so a status or type change can move it
+    private volatile Map<Long, Partition> carPartitions = new ConcurrentHashMap<>();
+
+    public RentalCarSpatialIndex(RentalCarRepository rentalCarRepository,
+                                 @Value("${smartparking.rental-index.cell-deg:0.02}") double cellDeg) {
+        this.rentalCarRepository = rentalCarRepository;
+        this.cellDeg = cellDeg;
+        this.partitions = emptyPartitions();
+    }
+
+    private record Partition(RentalCarStatus status, VehicleType type) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Query
+    // ─────────────────────────────────────────────────────────────────────
+
+    /**
+     * Up to k cars in the given status within maxKm, nearest first.
+     *
+     * @param type null searches every vehicle type
+     */
+    public List<GeoGridIndex.Hit<Long>> nearest(double lat, double lng, int k, double maxKm,
+                                                RentalCarStatus status, VehicleType type) {
+        Map<VehicleType, GeoGridIndex<Long>> byType = partitions.get(status);
+        if (type != null) {
+            return byType.get(type).nearest(lat, lng, k, maxKm, id -> true);
+        }
+        List<GeoGridIndex.Hit<Long>> merged = new ArrayList<>();
+        for (GeoGridIndex<Long> grid : byType.values()) {
+            if (grid.size() > 0) {
+                merged.addAll(grid.nearest(lat, lng, k, maxKm, id -> true));
+            }
+        }
+        merged.sort(Comparator.comparingDouble(GeoGridIndex.Hit::distanceKm));
+        return merged.size() > k ? merged.subList(0, k) : merged;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Sync — called by RentalCarController
+    // ─────────────────────────────────────────────────────────────────────
+
+    public void onCarSaved(RentalCar car) {
+        Long carId = car.getId();
+        RentalCarStatus status = car.getStatus();
+        VehicleType type = car.getVehicleType();
+        Double lat = car.getPickupLatitude();
+        Double lng = car.getPickupLongitude();
+        TransactionHooks.afterCommit(() -> {
+            if (status == null || type == null || lat == null || lng == null) {
+                remove(carId);
+            } else {
+                place(carId, new Partition(status, type), lat, lng);
+            }
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Reconcile with the DB — startup + every 10 minutes by default
+    // ─────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${smartparking.rental-index.reconcile-ms:600000}",
+               initialDelayString = "${smartparking.rental-index.reconcile-ms:600000}")
+    public synchronized void reconcile() {
+        Map<RentalCarStatus, Map<VehicleType, GeoGridIndex<Long>>> rebuilt = emptyPartitions();
+        Map<Long, Partition> rebuiltPartitions = new ConcurrentHashMap<>();
+        for (Object[] row : rentalCarRepository.findCarPoints()) {
+            Long carId = (Long) row[0];
+            Partition partition = new Partition((RentalCarStatus) row[1], (VehicleType) row[2]);
+            rebuilt.get(partition.status()).get(partition.type())
+                    .put(carId, (Double) row[3], (Double) row[4], carId);
+            rebuiltPartitions.put(carId, partition);
+        }
+        partitions = rebuilt;
+        carPartitions = rebuiltPartitions;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    // synchronized with reconcile() so a move never lands in a map that is being replaced
+    private synchronized void place(Long carId, Partition partition, double lat, double lng) {
+        Partition previous = carPartitions.put(carId, partition);
+        if (previous != null && !previous.equals(partition)) {
+            grid(previous).remove(carId);
+        }
+        grid(partition).put(carId, lat, lng, carId);
+    }
+
+    private synchronized void remove(Long carId) {
+        Partition previous = carPartitions.remove(carId);
+        if (previous != null) {
+            grid(previous).remove(carId);
+        }
+    }
+
+    private GeoGridIndex<Long> grid(Partition partition) {
+        return partitions.get(partition.status()).get(partition.type());
+    }
+
+    private Map<RentalCarStatus, Map<VehicleType, GeoGridIndex<Long>>> emptyPartitions() {
+        Map<RentalCarStatus, Map<VehicleType, GeoGridIndex<Long>>> byStatus = new EnumMap<>(RentalCarStatus.class);
+        for (RentalCarStatus status : RentalCarStatus.values()) {
+            Map<VehicleType, GeoGridIndex<Long>> byType = new EnumMap<>(VehicleType.class);
+            for (VehicleType type : VehicleType.values()) {
+                byType.put(type, new GeoGridIndex<>(cellDeg));
+            }
+            byStatus.put(status, byType);
+        }
+        return byStatus;
+    }
+}
@@ -0,0 +1,200 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.entities.nums.SlotType;
+import com.smartparking.entities.parking.Slot;
+import com.smartparking.repositories.SlotRepository;
+import com.smartparking.utils.TransactionHooks;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of AVAILABLE slots, bucketed by (lotId, SlotType).
+ *
+ * Booking used to scan the slots table for every reservation. With this index
+ * slot selection is a single pollFirst() on a concurrent sorted set, and the DB
+ * only sees the confirming write.
+ *
+ * Rules:
+ *  - The DB is always the source of truth. Callers must re-check the slot they
+ *    claim here; a stale id is simply dropped.
+ *  - A slot only re-enters the index AFTER the transaction that freed it commits,
+ *    so another request can never claim a slot the DB still shows as OCCUPIED.
+ *  - A claim that rolls back puts the slot id back.
+ *  - A lot that fills up or frees up is reported to ParkingLotSpatialIndex,
+ *    which drops cached ETA / fare answers around it.
+ *  - reconcile() rebuilds every bucket from the DB at startup and on a schedule,
+ *    which heals any drift (admin edits outside the services, deleted lots, etc.)
+ *
+ * Single-instance only — same trade-off as TokenBlacklistService.
+ */
+@Service
+public class SlotAvailabilityIndex {
+
+    private final SlotRepository slotRepository;
+    private final ParkingLotSpatialIndex parkingLotSpatialIndex;
+
+    private volatile Map<BucketKey, ConcurrentSkipListSet<Long>> buckets = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public SlotAvailabilityIndex(SlotRepository slotRepository,
+                                 ParkingLotSpatialIndex parkingLotSpatialIndex) {
+        this.slotRepository = slotRepository;
+        this.parkingLotSpatialIndex = parkingLotSpatialIndex;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Claim — O(log n) removal of the lowest available slot id
+    // ─────────────────────────────────────────────────────────────────────
+
+    /**
+     * Removes and returns an available slot id for the given lot and type.
+     * Must run inside a transaction; if it rolls back, the id is returned to the index.
+     */
+    public Optional<Long> claim(Long lotId, SlotType type) {
+        TransactionHooks.requireTransaction();
+        ConcurrentSkipListSet<Long> bucket = buckets.get(new BucketKey(lotId, type));
+        if (bucket == null) {
+            return Optional.empty();
+        }
+        Long slotId = bucket.pollFirst();
+        if (slotId == null) {
+            return Optional.empty();
+        }
+        reportIfNowFull(lotId);
+        TransactionHooks.onRollback(() -> addAll(lotId, type, List.of(slotId)));
+        return Optional.of(slotId);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Status transitions — called by every service that changes slot status
+    // ─────────────────────────────────────────────────────────────────────
+
+    public void onStatusChange(Slot slot) {
+        if (slot.getStatus() == SlotStatus.AVAILABLE) {
+            markAvailable(slot);
+        } else {
+            markUnavailable(slot);
+        }
+    }
+
+    /** Slot became AVAILABLE — visible to claims once the current transaction commits. */
+    public void markAvailable(Slot slot) {
+        Long slotId = slot.getId();
+        Long lotId = slot.getParkingLot().getId();
+        SlotType type = slot.getSlotType();
+        TransactionHooks.afterCommit(() -> addAll(lotId, type, List.of(slotId)));
+    }
+
+    /** Slot left AVAILABLE (occupied, maintenance or deleted) — removed immediately, restored on rollback. */
+    public void markUnavailable(Slot slot) {
+        TransactionHooks.requireTransaction();
+        Long slotId = slot.getId();
+        Long lotId = slot.getParkingLot().getId();
+        SlotType type = slot.getSlotType();
+        ConcurrentSkipListSet<Long> bucket = buckets.get(new BucketKey(lotId, type));
+        if (bucket != null && bucket.remove(slotId)) {
+            reportIfNowFull(lotId);
+            TransactionHooks.onRollback(() -> addAll(lotId, type, List.of(slotId)));
+        }
+    }
+
+    /**
+     * Puts back ids that were claimed but not used (e.g. skipped because of a
+     * future reservation). The slots never left AVAILABLE, so no commit is awaited.
+     */
+    public void returnUnclaimed(Long lotId, SlotType type, Collection<Long> slotIds) {
+        if (!slotIds.isEmpty()) {
+            addAll(lotId, type, slotIds);
+        }
+    }
+
+    /**
+     * Which of the given lots have at least one AVAILABLE slot of any type.
+     * Pure in-memory — callers check isReady() first.
+     */
+    public Set<Long> lotsWithAvailable(Collection<Long> lotIds) {
+        Set<Long> open = new HashSet<>();
+        for (Long lotId : lotIds) {
+            if (hasAvailable(lotId)) {
+                open.add(lotId);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * False until the first reconcile has finished. Callers fall back to the
+     * DB query while the index is still warming up.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Reconcile with the DB — startup + every 5 minutes by default
+    // ─────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${smartparking.slot-index.reconcile-ms:300000}",
+               initialDelayString = "${smartparking.slot-index.reconcile-ms:300000}")
+    public void reconcile() {
+        Map<BucketKey, ConcurrentSkipListSet<Long>> rebuilt = new ConcurrentHashMap<>();
+        for (Object[] row : slotRepository.findSlotKeysByStatus(SlotStatus.AVAILABLE)) {
+            Long slotId = (Long) row[0];
+            Long lotId = (Long) row[1];
+            SlotType type = (SlotType) row[2];
+            rebuilt.computeIfAbsent(new BucketKey(lotId, type), k -> new ConcurrentSkipListSet<>())
+                    .add(slotId);
+        }
+        buckets = rebuilt;
+        ready = true;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private boolean hasAvailable(Long lotId) {
+        Map<BucketKey, ConcurrentSkipListSet<Long>> snapshot = buckets;
+        for (SlotType type : SlotType.values()) {
+            ConcurrentSkipListSet<Long> bucket = snapshot.get(new BucketKey(lotId, type));
+            if (bucket != null && !bucket.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A lot going from full to open (or back) changes nearest-lot answers around it
+    private void addAll(Long lotId, SlotType type, Collection<Long> slotIds) {
+        boolean wasFull = !hasAvailable(lotId);
+        bucketFor(lotId, type).addAll(slotIds);
+        if (wasFull) {
+            parkingLotSpatialIndex.onAvailabilityChanged(lotId);
+        }
+    }
+
+    private void reportIfNowFull(Long lotId) {
+        if (!hasAvailable(lotId)) {
+            parkingLotSpatialIndex.onAvailabilityChanged(lotId);
+        }
+    }
+
+    private ConcurrentSkipListSet<Long> bucketFor(Long lotId, SlotType type) {
+        return buckets.computeIfAbsent(new BucketKey(lotId, type), k -> new ConcurrentSkipListSet<>());
+    }
+
+    private record BucketKey(Long lotId, SlotType type) {}
+}
@@ -0,0 +1,212 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.entities.nums.SlotType;
+import com.smartparking.entities.parking.Slot;
+import com.smartparking.exceptions.ResourceNotFoundException;
+import com.smartparking.repositories.SlotRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Race-free slot allocation.
+ *
+ * The old flow read an AVAILABLE slot, set OCCUPIED in Java and saved it — two
+ * concurrent bookings could read the same row and the second save silently
+ * overwrote the first. Every claim now goes through ONE conditional statement:
+ *
+ *   UPDATE slots SET status = 'OCCUPIED' WHERE id = ? AND status = 'AVAILABLE'
+ *
+ * Exactly one transaction gets "1 row updated"; the loser moves on to the next
+ * candidate.
+ *
+ * Candidates come from SlotAvailabilityIndex. While the index is still warming
+ * up, candidates are picked with SELECT ... FOR UPDATE SKIP LOCKED so concurrent
+ * claimers never pick the same row, a page at a time until one is claimed.
+ *
+ * A slot that is free now may still be promised to a later booking, so claimAny
+ * also reserves [now, until) in SlotReservationCalendar and skips slots whose
+ * calendar clashes.
+ *
+ * The CAS statements bump Slot.version like a normal versioned update. They run
+ * past the persistence context, so an entity loaded BEFORE the CAS is refreshed
+ * afterwards — otherwise its stale version would fail the next flush.
+ */
+@Service
+public class SlotClaimService {
+
+    private final SlotRepository slotRepository;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+    private final SlotReservationCalendar reservationCalendar;
+    private final EntityManager entityManager;
+
+    // Extra rows locked per page — enough to step over a few reserved slots without another query
+    private static final int WARMUP_CANDIDATES = 10;
+
+    public SlotClaimService(SlotRepository slotRepository,
+                            SlotAvailabilityIndex slotAvailabilityIndex,
+                            SlotReservationCalendar reservationCalendar,
+                            EntityManager entityManager) {
+        this.slotRepository = slotRepository;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
+        this.reservationCalendar = reservationCalendar;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Claims any AVAILABLE slot of the given type in the lot that has no
+     * reservation overlapping [now, until), and reserves that window for the booking.
+     *
+     * @return the claimed slot, already OCCUPIED in the DB
+     * @throws RuntimeException if the lot has no free slot of that type
+     */
+    @Transactional
+    public Slot claimAny(Long lotId, SlotType type, String bookingCode, LocalDateTime until) {
+        LocalDateTime now = LocalDateTime.now();
+        if (slotAvailabilityIndex.isReady()) {
+            List<Long> reservedLater = new ArrayList<>();
+            try {
+                Optional<Long> candidate;
+                while ((candidate = slotAvailabilityIndex.claim(lotId, type)).isPresent()) {
+                    Long slotId = candidate.get();
+                    if (!reservationCalendar.tryReserve(slotId, bookingCode, now, until)) {
+                        reservedLater.add(slotId); // free now, but promised to someone before we'd leave
+                        continue;
+                    }
+                    if (slotRepository.compareAndSetStatus(
+                            slotId, SlotStatus.AVAILABLE, SlotStatus.OCCUPIED) == 1) {
+                        return loadClaimed(slotId);
+                    }
+                    // Lost the race or the index was stale — undo the window and try the next candidate
+                    reservationCalendar.discard(slotId, bookingCode);
+                }
+            } finally {
+                slotAvailabilityIndex.returnUnclaimed(lotId, type, reservedLater);
+            }
+        } else {
+            // Page past candidates promised to later bookings until one is claimed or none are left
+            long afterId = 0;
+            List<Long> locked;
+            while (!(locked = slotRepository.lockAvailableSlotIdsAfter(
+                    lotId, type.name(), afterId, WARMUP_CANDIDATES)).isEmpty()) {
+                for (Long slotId : locked) {
+                    afterId = slotId;
+                    if (!reservationCalendar.tryReserve(slotId, bookingCode, now, until)) {
+                        continue;
+                    }
+                    if (slotRepository.compareAndSetStatus(
+                            slotId, SlotStatus.AVAILABLE, SlotStatus.OCCUPIED) == 1) {
+                        return loadClaimed(slotId);
+                    }
+                    reservationCalendar.discard(slotId, bookingCode);
+                }
+            }
+        }
+        throw new RuntimeException("Sorry, this lot is completely full for " + type + " slots!");
+    }
+
+    /** One line of a group claim: a slot of this type in this lot for each booking code. */
+    public record GroupClaim(Long lotId, SlotType type, List<String> bookingCodes) {}
+
+    /**
+     * Claims a slot for every booking code across all groups, all-or-nothing.
+     *
+     * Candidates are locked per (lot, type) with SKIP LOCKED, filtered through the
+     * reservation calendar for [now, until), then flipped to OCCUPIED with ONE
+     * UPDATE ... WHERE id IN (...) for the whole request. If too many candidates
+     * are promised to later bookings, the next page of ids is locked, until the
+     * group is filled or the lot has no more free slots of that type.
+     *
+     * @return booking code → claimed slot (already OCCUPIED in the DB), in request order
+     * @throws RuntimeException if any group can't be filled; nothing is claimed then
+     */
+    @Transactional
+    public Map<String, Slot> claimAll(List<GroupClaim> groups, LocalDateTime until) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> assigned = new LinkedHashMap<>();
+        for (GroupClaim group : groups) {
+            int needed = group.bookingCodes().size();
+            int filled = 0;
+            long afterId = 0;
+            while (filled < needed) {
+                List<Long> locked = slotRepository.lockAvailableSlotIdsAfter(
+                        group.lotId(), group.type().name(), afterId, needed - filled + WARMUP_CANDIDATES);
+                if (locked.isEmpty()) {
+                    break; // no free slot of this type left in the lot
+                }
+                for (Long slotId : locked) {
+                    if (filled == needed) {
+                        break;
+                    }
+                    afterId = slotId;
+                    String bookingCode = group.bookingCodes().get(filled);
+                    if (reservationCalendar.tryReserve(slotId, bookingCode, now, until)) {
+                        assigned.put(bookingCode, slotId);
+                        filled++;
+                    }
+                }
+            }
+            if (filled < needed) {
+                throw new RuntimeException("Only " + filled + " " + group.type()
+                        + " slots are free in lot " + group.lotId() + " — requested " + needed + ".");
+            }
+        }
+
+        List<Long> slotIds = new ArrayList<>(assigned.values());
+        if (slotRepository.compareAndSetStatusAll(slotIds, SlotStatus.AVAILABLE, SlotStatus.OCCUPIED)
+                != slotIds.size()) {
+            // Rows were locked above, so this only happens if a slot changed outside the services
+            throw new RuntimeException("Some slots were taken while reserving. Please try again.");
+        }
+
+        Map<Long, Slot> byId = new HashMap<>();
+        for (Slot slot : slotRepository.findAllById(slotIds)) {
+            syncAfterCas(slot);
+            slotAvailabilityIndex.markUnavailable(slot);
+            byId.put(slot.getId(), slot);
+        }
+        Map<String, Slot> result = new LinkedHashMap<>();
+        assigned.forEach((bookingCode, slotId) -> result.put(bookingCode, byId.get(slotId)));
+        return result;
+    }
+
+    /**
+     * Claims one specific slot (valet parking picks the slot explicitly).
+     *
+     * @return true if this caller won the slot, false if it was no longer AVAILABLE
+     */
+    @Transactional
+    public boolean claim(Slot slot) {
+        if (slotRepository.compareAndSetStatus(
+                slot.getId(), SlotStatus.AVAILABLE, SlotStatus.OCCUPIED) != 1) {
+            return false;
+        }
+        // Keep the managed entity in step with the row we just updated (status + version)
+        entityManager.refresh(slot);
+        slotAvailabilityIndex.markUnavailable(slot);
+        return true;
+    }
+
+    private Slot loadClaimed(Long slotId) {
+        Slot slot = slotRepository.findById(slotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Slot not found with id: " + slotId));
+        syncAfterCas(slot);
+        return slot;
+    }
+
+    // A slot already managed before the CAS still shows AVAILABLE and the old version
+    private void syncAfterCas(Slot slot) {
+        if (slot.getStatus() != SlotStatus.OCCUPIED) {
+            entityManager.refresh(slot);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.BookingStatus;
+import com.smartparking.repositories.BookingRepository;
+import com.smartparking.utils.TransactionHooks;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-slot reservation calendar — which time windows each slot is promised for.
+ *
+ * SlotStatus only describes the slot right now. A booking for tonight must not
+ * take a slot out of circulation this afternoon, so future bookings live here
+ * instead of flipping the slot to OCCUPIED.
+ *
+ * Each slot keeps its reservations in a TreeMap keyed by start time. Windows in
+ * one slot never overlap, so an overlap check for [start, end) only has to look
+ * at the two neighbours of start — O(log n) however many bookings the slot has.
+ *
+ * Rules:
+ *  - Windows are half-open: [entry, exit). Back-to-back bookings do not clash.
+ *  - A reservation made in a transaction that rolls back is removed again.
+ *  - A released reservation disappears only AFTER its transaction commits.
+ *  - Open PENDING/ACTIVE bookings are loaded at startup; finished windows are
+ *    pruned every hour.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class SlotReservationCalendar {
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Long, TreeMap<LocalDateTime, Reservation>> calendars = new ConcurrentHashMap<>();
+
+    public SlotReservationCalendar(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public record Reservation(String bookingCode, LocalDateTime start, LocalDateTime end) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Reserve / release
+    // ─────────────────────────────────────────────────────────────────────
+
+    /**
+     * Books [start, end) on the slot if nothing overlaps. Must run inside a
+     * transaction — a rollback removes the window again.
+     *
+     * @return true if the window was free and is now held for the booking
+     */
+    public boolean tryReserve(Long slotId, String bookingCode, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Reservation must end after it starts.");
+        }
+        TransactionHooks.requireTransaction();
+        TreeMap<LocalDateTime, Reservation> calendar = calendarFor(slotId);
+        synchronized (calendar) {
+            if (overlaps(calendar, start, end)) {
+                return false;
+            }
+            calendar.put(start, new Reservation(bookingCode, start, end));
+        }
+        TransactionHooks.onRollback(() -> discard(slotId, bookingCode));
+        return true;
+    }
+
+    /**
+     * Reserves [start, end) on the first slot in the list whose calendar is free.
+     * Callers order the list by preference.
+     */
+    public Optional<Long> reserveAny(List<Long> slotIds, String bookingCode,
+                                     LocalDateTime start, LocalDateTime end) {
+        for (Long slotId : slotIds) {
+            if (tryReserve(slotId, bookingCode, start, end)) {
+                return Optional.of(slotId);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** True if no reservation on the slot overlaps [start, end). */
+    public boolean isFree(Long slotId, LocalDateTime start, LocalDateTime end) {
+        TreeMap<LocalDateTime, Reservation> calendar = calendars.get(slotId);
+        if (calendar == null) {
+            return true;
+        }
+        synchronized (calendar) {
+            return !overlaps(calendar, start, end);
+        }
+    }
+
+    /** Drops the booking's window once the current transaction commits (checkout, cancel, slot move). */
+    public void release(Long slotId, String bookingCode) {
+        TransactionHooks.afterCommit(() -> discard(slotId, bookingCode));
+    }
+
+    /** Drops the booking's window immediately — for undoing a reservation inside the same transaction. */
+    public void discard(Long slotId, String bookingCode) {
+        TreeMap<LocalDateTime, Reservation> calendar = calendars.get(slotId);
+        if (calendar == null) {
+            return;
+        }
+        synchronized (calendar) {
+            calendar.values().removeIf(r -> r.bookingCode().equals(bookingCode));
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Startup load + hourly prune
+    // ─────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> rows = bookingRepository.findOpenReservationWindows(
+                List.of(BookingStatus.PENDING, BookingStatus.ACTIVE), LocalDateTime.now());
+        for (Object[] row : rows) {
+            Long slotId = (Long) row[0];
+            String bookingCode = (String) row[1];
+            LocalDateTime start = (LocalDateTime) row[2];
+            LocalDateTime end = (LocalDateTime) row[3];
+            if (start == null || end == null || !end.isAfter(start)) {
+                continue;
+            }
+            TreeMap<LocalDateTime, Reservation> calendar = calendarFor(slotId);
+            synchronized (calendar) {
+                // Legacy rows may overlap — keep the first, the DB still holds both bookings
+                if (!overlaps(calendar, start, end)) {
+                    calendar.put(start, new Reservation(bookingCode, start, end));
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${smartparking.reservations.prune-ms:3600000}")
+    public void pruneFinished() {
+        LocalDateTime now = LocalDateTime.now();
+        calendars.values().forEach(calendar -> {
+            synchronized (calendar) {
+                calendar.values().removeIf(r -> !r.end().isAfter(now));
+            }
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private TreeMap<LocalDateTime, Reservation> calendarFor(Long slotId) {
+        return calendars.computeIfAbsent(slotId, k -> new TreeMap<>());
+    }
+
+    // Caller must hold the calendar's monitor
+    private static boolean overlaps(TreeMap<LocalDateTime, Reservation> calendar,
+                                    LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, Reservation> before = calendar.floorEntry(start);
+        if (before != null && before.getValue().end().isAfter(start)) {
+            return true;
+        }
+        Map.Entry<LocalDateTime, Reservation> after = calendar.higherEntry(start);
+        return after != null && after.getKey().isBefore(end);
+    }
+}
@@ -5,8 +5,7 @@ import com.smartparking.websocket.SlotStatusMessage;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @Service
 public class SlotWebSocketService {
@@ -20,19 +19,28 @@ public class SlotWebSocketService {
 
     public void broadcastSlotUpdate(Slot slot) {
         // 1. Pack the data into our message
-        SlotStatusMessage message = new SlotStatusMessage(
-                slot.getId(),
-                slot.getSlotNumber(),
-                slot.getParkingLot().getId(),
-                slot.getStatus(),
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"))
-        );
+        broadcastSlotUpdate(SlotStatusMessage.of(slot));
+    }
 
+    public void broadcastSlotUpdate(SlotStatusMessage message) {
         // 2. Broadcast it to the specific parking lot's "channel"
         // Frontend React app will listen to this exact string!
         messagingTemplate.convertAndSend(
-                "/topic/parking-lot/" + slot.getParkingLot().getId() + "/slots",
+                "/topic/parking-lot/" + message.getParkingLotId() + "/slots",
                 message
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * One message for many slots of the same lot — used by group bookings so
+     * clients get a single frame instead of N. Published on a separate
+     * ".../slots/batch" topic because existing subscribers of ".../slots"
+     * expect a single SlotStatusMessage.
+     */
+    public void broadcastSlotUpdates(Long parkingLotId, List<SlotStatusMessage> messages) {
+        messagingTemplate.convertAndSend(
+                "/topic/parking-lot/" + parkingLotId + "/slots/batch",
+                messages
+        );
+    }
+}
@@ -0,0 +1,108 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.valet.ValetTripTrail;
+import com.smartparking.repositories.ValetTripTrailRepository;
+import com.smartparking.utils.TransactionHooks;
+import com.smartparking.utils.TripTrail;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The GPS trail of every live valet job, so fares can bill the distance the
+ * valet actually drove instead of straight lines between pickup, lot and return.
+ *
+ *  - ValetTrackingService opens a trail when a job is ACCEPTED and feeds it the
+ *    valet's pings while they drive for the job (to the customer, to the lot,
+ *    and back). Pings while the car is PARKED are not recorded.
+ *  - Points go into a TripTrail (delta + varint packed, ~3 bytes per point), so
+ *    a multi-hour job stays at a few KB. Jumps faster than max-speed-kmh
+ *    (150 by default) are GPS glitches and are not counted.
+ *  - ValetServiceImpl.verifyDropoff writes the trail ONCE, as one blob row in
+ *    the completing transaction; memory is freed after the commit.
+ *  - A job that leaves the tracked set any other way loses its trail, and
+ *    ValetTrackingService sweeps out any trail whose job it no longer tracks.
+ *
+ * A job that was already running at startup has no trail — its fare keeps
+ * the straight-line estimate rather than billing half a path.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class TripTrailStore {
+
+    private final ValetTripTrailRepository trailRepository;
+    private final double minStepKm;
+    private final double maxSpeedKmh;
+    private final int maxBytes;
+
+    private final Map<Long, TripTrail> live = new ConcurrentHashMap<>();
+
+    public TripTrailStore(ValetTripTrailRepository trailRepository,
+                          @Value("${smartparking.valet-trail.min-step-meters:10}") double minStepMeters,
+                          @Value("${smartparking.valet-trail.max-speed-kmh:150}") double maxSpeedKmh,
+                          @Value("${smartparking.valet-trail.max-bytes:16384}") int maxBytes) {
+        this.trailRepository = trailRepository;
+        this.minStepKm = minStepMeters / 1000.0;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.maxBytes = maxBytes;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Recording — called by ValetTrackingService
+    // ─────────────────────────────────────────────────────────────────────
+
+    public void start(Long requestId) {
+        live.putIfAbsent(requestId, new TripTrail(minStepKm, maxSpeedKmh, maxBytes));
+    }
+
+    /** Ignored for jobs without an open trail. */
+    public void record(Long requestId, double lat, double lon, long epochMillis) {
+        TripTrail trail = live.get(requestId);
+        if (trail != null) {
+            trail.append(lat, lon, epochMillis);
+        }
+    }
+
+    public void discard(Long requestId) {
+        live.remove(requestId);
+    }
+
+    /** Drops every trail whose job is not in the given set. */
+    public void retainOnly(Set<Long> requestIds) {
+        live.keySet().retainAll(requestIds);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Completion + billing
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Saves the trail in the current transaction; the in-memory copy goes once it commits. */
+    public void complete(Long requestId) {
+        TripTrail trail = live.get(requestId);
+        if (trail == null) {
+            return;
+        }
+        ValetTripTrail row = new ValetTripTrail();
+        row.setValetRequestId(requestId);
+        row.setDistanceKm(trail.distanceKm());
+        row.setPointCount(trail.pointCount());
+        row.setTruncated(trail.isTruncated());
+        row.setTrail(trail.toBytes());
+        trailRepository.save(row);
+        TransactionHooks.afterCommit(() -> live.remove(requestId));
+    }
+
+    /** Distance driven for the job — from memory while it runs, from the stored row after. */
+    public Optional<Double> travelledKm(Long requestId) {
+        TripTrail trail = live.get(requestId);
+        if (trail != null) {
+            return Optional.of(trail.distanceKm());
+        }
+        return trailRepository.findDistanceKmByValetRequestId(requestId);
+    }
+}
@@ -0,0 +1,277 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.ValetStatus;
+import com.smartparking.repositories.ValetRequestRepository;
+import com.smartparking.utils.GeoGridIndex;
+import com.smartparking.utils.GeoUtils;
+import com.smartparking.utils.SparseAuction;
+import com.smartparking.utils.TransactionHooks;
+import com.smartparking.websocket.ValetJobOfferMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch valet dispatch — every tick, open jobs are matched to available valets
+ * with the least total pickup distance, and each chosen valet gets ONE offer.
+ *
+ * The old flow pinged every nearby valet about every job and gave it to whoever
+ * tapped first. At peak that sent valets across town while a closer one took
+ * a different job. Now, every smartparking.valet-dispatch.tick-ms (3 s):
+ *  1. Load the REQUESTED jobs that have no open offer, oldest first.
+ *  2. For each, ask ValetLocationStore's grid for the nearest candidates
+ *     (8 by default, within 20 km) that are free: no live job, no open offer,
+ *     and they haven't declined this job.
+ *  3. Solve the assignment on that sparse graph with SparseAuction under a
+ *     fixed time budget (200 ms by default).
+ *  4. Push an offer to /topic/valet/{valetId}/offers plus the usual notification.
+ *
+ * Rules:
+ *  - An offer holds the job for offer-seconds (20 by default). While it is
+ *    open only that valet can accept; declining or letting it lapse puts the
+ *    job back in the next tick without that valet.
+ *  - A job nobody was matched to is fanned out to the valets around it by
+ *    ValetJobBroadcaster, and any valet can still accept it from /jobs/available.
+ *  - Every valet who was pushed an offer for a job is remembered; when someone
+ *    else accepts it, exactly those valets get the "Job Taken" notification.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class ValetDispatcher {
+
+    private final ValetRequestRepository valetRequestRepository;
+    private final ValetLocationStore valetLocationStore;
+    private final ValetTrackingService valetTrackingService;
+    private final NotificationService notificationService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ValetJobBroadcaster jobBroadcaster;
+
+    private final long offerMillis;
+    private final int candidatesPerJob;
+    private final double maxKm;
+    private final long budgetNanos;
+    private final int maxJobsPerTick;
+
+    // Cost of leaving a job unmatched this tick — above maxKm, so any reachable valet beats waiting
+    private static final double UNMATCHED_PENALTY_KM = 1.0;
+    // Bid increment: the matching is within 50 m per job of the true optimum
+    private static final double EPSILON_KM = 0.05;
+
+    private final Map<Long, Offer> offersByRequest = new ConcurrentHashMap<>();
+    private final Map<Long, Offer> offersByValet = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> declined = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> offeredTo = new ConcurrentHashMap<>();
+
+    public ValetDispatcher(ValetRequestRepository valetRequestRepository,
+                           ValetLocationStore valetLocationStore,
+                           ValetTrackingService valetTrackingService,
+                           NotificationService notificationService,
+                           SimpMessagingTemplate messagingTemplate,
+                           ValetJobBroadcaster jobBroadcaster,
+                           @Value("${smartparking.valet-dispatch.offer-seconds:20}") long offerSeconds,
+                           @Value("${smartparking.valet-dispatch.candidates:8}") int candidatesPerJob,
+                           @Value("${smartparking.valet-dispatch.max-km:20}") double maxKm,
+                           @Value("${smartparking.valet-dispatch.budget-ms:200}") long budgetMs,
+                           @Value("${smartparking.valet-dispatch.max-jobs-per-tick:1000}") int maxJobsPerTick) {
+        this.valetRequestRepository = valetRequestRepository;
+        this.valetLocationStore = valetLocationStore;
+        this.valetTrackingService = valetTrackingService;
+        this.notificationService = notificationService;
+        this.messagingTemplate = messagingTemplate;
+        this.jobBroadcaster = jobBroadcaster;
+        this.offerMillis = offerSeconds * 1000;
+        this.candidatesPerJob = candidatesPerJob;
+        this.maxKm = maxKm;
+        this.budgetNanos = budgetMs * 1_000_000;
+        this.maxJobsPerTick = maxJobsPerTick;
+    }
+
+    public record Offer(Long requestId, Long valetId, long expiresAtMillis) {
+
+        boolean isOpen(long now) {
+            return expiresAtMillis > now;
+        }
+    }
+
+    private record OpenJob(Long requestId, double lat, double lon, String customerName) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Offer lifecycle — called by ValetServiceImpl
+    // ─────────────────────────────────────────────────────────────────────
+
+    /**
+     * @throws RuntimeException if the job is currently offered to a different valet
+     */
+    public void checkCanAccept(Long requestId, Long valetId) {
+        Offer offer = offersByRequest.get(requestId);
+        if (offer != null && offer.isOpen(System.currentTimeMillis()) && !offer.valetId().equals(valetId)) {
+            throw new RuntimeException("This job has been offered to another valet.");
+        }
+    }
+
+    /**
+     * Closes the job's offer and retracts it from every valet app once the accept
+     * commits. Valets who were offered the job earlier are told it is taken.
+     */
+    public void onAccepted(Long requestId, Long valetId) {
+        TransactionHooks.afterCommit(() -> {
+            Offer offer = offersByRequest.remove(requestId);
+            if (offer != null) {
+                offersByValet.remove(offer.valetId(), offer);
+            }
+            declined.remove(requestId);
+            Set<Long> offered = offeredTo.remove(requestId);
+            jobBroadcaster.retract(requestId);
+            if (offered != null) {
+                offered.stream()
+                        .filter(id -> !id.equals(valetId))
+                        .forEach(notificationService::notifyValetJobTaken);
+            }
+        });
+    }
+
+    /** The valet passes on the job — it goes back into the next tick without them. */
+    public void decline(Long requestId, Long valetId) {
+        declined.computeIfAbsent(requestId, id -> ConcurrentHashMap.newKeySet()).add(valetId);
+        Offer offer = offersByRequest.get(requestId);
+        if (offer != null && offer.valetId().equals(valetId)) {
+            offersByRequest.remove(requestId, offer);
+            offersByValet.remove(valetId, offer);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Dispatch tick
+    // ─────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${smartparking.valet-dispatch.tick-ms:3000}")
+    public synchronized void dispatch() {
+        long now = System.currentTimeMillis();
+        expireOffers(now);
+
+        List<OpenJob> jobs = new ArrayList<>();
+        Set<Long> open = new HashSet<>();
+        for (Object[] row : valetRequestRepository.findOpenJobs(
+                ValetStatus.REQUESTED, PageRequest.of(0, maxJobsPerTick))) {
+            Long requestId = (Long) row[0];
+            open.add(requestId);
+            if (!offersByRequest.containsKey(requestId)) {
+                jobs.add(new OpenJob(requestId, (Double) row[1], (Double) row[2], (String) row[3]));
+            }
+        }
+        // Jobs that were accepted or cancelled elsewhere don't need their decline or offer lists any more
+        declined.keySet().retainAll(open);
+        offeredTo.keySet().retainAll(open);
+        jobBroadcaster.retainOpen(open);
+        if (jobs.isEmpty()) {
+            return;
+        }
+        if (!valetLocationStore.hasAvailableValets()) {
+            jobs.forEach(this::broadcast);
+            return;
+        }
+
+        // Sparse candidate graph: job i → its nearest free valets
+        Map<Long, Integer> valetIndex = new HashMap<>();
+        List<Long> valetIds = new ArrayList<>();
+        int[][] edges = new int[jobs.size()][];
+        double[][] costs = new double[jobs.size()][];
+        for (int i = 0; i < jobs.size(); i++) {
+            OpenJob job = jobs.get(i);
+            Set<Long> passed = declined.getOrDefault(job.requestId(), Set.of());
+            // Over-fetch so valets we skip below don't leave the job short of candidates
+            List<GeoGridIndex.Hit<ValetLocationStore.LiveLocation>> hits = valetLocationStore.nearestAvailable(
+                    job.lat(), job.lon(), candidatesPerJob * 2, maxKm);
+            List<Integer> jobEdges = new ArrayList<>(candidatesPerJob);
+            List<Double> jobCosts = new ArrayList<>(candidatesPerJob);
+            for (GeoGridIndex.Hit<ValetLocationStore.LiveLocation> hit : hits) {
+                Long valetId = hit.value().valetId();
+                if (jobEdges.size() == candidatesPerJob) {
+                    break;
+                }
+                if (offersByValet.containsKey(valetId) || passed.contains(valetId)
+                        || valetTrackingService.isOnJob(valetId)) {
+                    continue;
+                }
+                jobEdges.add(valetIndex.computeIfAbsent(valetId, id -> {
+                    valetIds.add(id);
+                    return valetIds.size() - 1;
+                }));
+                jobCosts.add(hit.distanceKm());
+            }
+            edges[i] = jobEdges.stream().mapToInt(Integer::intValue).toArray();
+            costs[i] = jobCosts.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+        if (valetIds.isEmpty()) {
+            jobs.forEach(this::broadcast);
+            return;
+        }
+
+        long started = System.nanoTime();
+        int[] assignment = SparseAuction.solve(edges, costs, valetIds.size(),
+                maxKm + UNMATCHED_PENALTY_KM, EPSILON_KM, started + budgetNanos);
+
+        long expiresAt = System.currentTimeMillis() + offerMillis;
+        for (int i = 0; i < jobs.size(); i++) {
+            OpenJob job = jobs.get(i);
+            if (assignment[i] < 0) {
+                broadcast(job);
+                continue;
+            }
+            Long valetId = valetIds.get(assignment[i]);
+            double distanceKm = costs[i][indexOf(edges[i], assignment[i])];
+            offer(job, valetId, distanceKm, expiresAt);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private void offer(OpenJob job, Long valetId, double distanceKm, long expiresAt) {
+        Offer offer = new Offer(job.requestId(), valetId, expiresAt);
+        offersByRequest.put(job.requestId(), offer);
+        offersByValet.put(valetId, offer);
+        offeredTo.computeIfAbsent(job.requestId(), id -> ConcurrentHashMap.newKeySet()).add(valetId);
+        jobBroadcaster.stop(job.requestId());
+        messagingTemplate.convertAndSend("/topic/valet/" + valetId + "/offers",
+                new ValetJobOfferMessage(job.requestId(), job.customerName(), job.lat(), job.lon(),
+                        distanceKm, GeoUtils.estimatedMinutes(distanceKm), expiresAt));
+        notificationService.notifyValetNewJobAvailable(valetId, job.customerName());
+    }
+
+    private void broadcast(OpenJob job) {
+        jobBroadcaster.broadcast(job.requestId(), job.lat(), job.lon(), job.customerName());
+    }
+
+    // A lapsed offer counts as a decline — the next tick tries someone else
+    private void expireOffers(long now) {
+        for (Offer offer : List.copyOf(offersByRequest.values())) {
+            if (!offer.isOpen(now) && offersByRequest.remove(offer.requestId(), offer)) {
+                offersByValet.remove(offer.valetId(), offer);
+                declined.computeIfAbsent(offer.requestId(), id -> ConcurrentHashMap.newKeySet())
+                        .add(offer.valetId());
+            }
+        }
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
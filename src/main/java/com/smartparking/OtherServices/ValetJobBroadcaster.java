@@ -0,0 +1,138 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.utils.GeoUtils;
+import com.smartparking.websocket.ValetJobRegionMessage;
+import com.smartparking.websocket.ValetJobRetractionMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Region fan-out for valet jobs that ValetDispatcher could not place.
+ *
+ * Posting a job used to write one notification_history row and send one
+ * WebSocket frame per valet in the city. Now a job nobody was matched to is
+ * published ONCE per region:
+ *
+ *   /topic/valet-jobs/region/{geohash}    (precision 5 ≈ 4.9 × 4.9 km)
+ *
+ * The valet app subscribes to the region of its own position (returned by
+ * POST /api/valet/location as "jobRegion"), so a message reaches only valets
+ * nearby and nothing is persisted.
+ *
+ * Rules:
+ *  - The first post covers the regions within radii-km[0] (3 km by default).
+ *  - Every widen-ms (30 s) without an accept, the ring grows to the next radius
+ *    (8 km, then 20 km); only regions not covered yet get the new frame.
+ *  - Accepting, an offer from the dispatcher, or the job leaving REQUESTED
+ *    stops the fan-out.
+ *  - When a job is taken, ONE retraction frame goes to /topic/valet-jobs with
+ *    the request id and a sequence number; apps drop the card locally. Accept
+ *    latency no longer depends on how many valets are online. Numbers are
+ *    handed out and sent under one lock, and the broker preserves publish
+ *    order, so each session sees them ascending.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class ValetJobBroadcaster {
+
+    public static final int REGION_PRECISION = 5;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final double[] radiiKm;
+    private final long widenMillis;
+
+    private final Map<Long, Broadcast> live = new ConcurrentHashMap<>();
+    // Seeded from the clock so a restart never reuses sequence numbers clients have already seen
+    private final Object retractionLock = new Object();
+    private long retractionSeq = System.currentTimeMillis();
+
+    public ValetJobBroadcaster(SimpMessagingTemplate messagingTemplate,
+                               @Value("${smartparking.valet-broadcast.radii-km:3,8,20}") double[] radiiKm,
+                               @Value("${smartparking.valet-broadcast.widen-ms:30000}") long widenMillis) {
+        if (radiiKm.length == 0) {
+            throw new IllegalArgumentException("smartparking.valet-broadcast.radii-km must list at least one radius");
+        }
+        this.messagingTemplate = messagingTemplate;
+        this.radiiKm = radiiKm;
+        this.widenMillis = widenMillis;
+    }
+
+    private record Broadcast(Long requestId, double lat, double lon, String customerName,
+                             int stage, Set<String> regions, long nextWidenAtMillis) {}
+
+    /** The region a valet at this position should listen to. */
+    public static String regionOf(double lat, double lon) {
+        return GeoUtils.geohash(lat, lon, REGION_PRECISION);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Start / stop — called by ValetDispatcher
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Starts the fan-out at the smallest ring; a job that is already being broadcast is left alone. */
+    public void broadcast(Long requestId, double lat, double lon, String customerName) {
+        live.computeIfAbsent(requestId, id -> publish(
+                new Broadcast(id, lat, lon, customerName, 0, Set.of(), 0), 0));
+    }
+
+    public void stop(Long requestId) {
+        live.remove(requestId);
+    }
+
+    /** The job was taken — stop widening and tell every valet app to drop its card. */
+    public void retract(Long requestId) {
+        live.remove(requestId);
+        synchronized (retractionLock) {
+            messagingTemplate.convertAndSend("/topic/valet-jobs",
+                    new ValetJobRetractionMessage(requestId, ++retractionSeq));
+        }
+    }
+
+    /** Drops jobs that were accepted or cancelled without going through stop(). */
+    public void retainOpen(Collection<Long> openRequestIds) {
+        live.keySet().retainAll(openRequestIds);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Widening — every few seconds, check whose ring is due to grow
+    // ─────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${smartparking.valet-broadcast.check-ms:5000}")
+    public void widen() {
+        long now = System.currentTimeMillis();
+        for (Long requestId : live.keySet()) {
+            live.computeIfPresent(requestId, (id, b) ->
+                    b.nextWidenAtMillis() <= now && b.stage() + 1 < radiiKm.length
+                            ? publish(b, b.stage() + 1)
+                            : b);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    // Sends the frame to the regions of this stage that earlier stages didn't reach
+    private Broadcast publish(Broadcast b, int stage) {
+        double radiusKm = radiiKm[stage];
+        ValetJobRegionMessage message = new ValetJobRegionMessage(
+                b.requestId(), b.customerName(), b.lat(), b.lon(), radiusKm, System.currentTimeMillis());
+        Set<String> reached = new HashSet<>(b.regions());
+        for (String region : GeoUtils.geohashesCovering(b.lat(), b.lon(), radiusKm, REGION_PRECISION)) {
+            if (reached.add(region)) {
+                messagingTemplate.convertAndSend("/topic/valet-jobs/region/" + region, message);
+            }
+        }
+        return new Broadcast(b.requestId(), b.lat(), b.lon(), b.customerName(), stage, reached,
+                System.currentTimeMillis() + widenMillis);
+    }
+}
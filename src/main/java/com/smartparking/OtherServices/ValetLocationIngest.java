@@ -0,0 +1,92 @@
+package com.smartparking.OtherServices;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point for valet GPS pings from both channels:
+ *
+ *   HTTP   POST /api/valet/location     — applied immediately, as before
+ *   STOMP  SEND /app/valet/location     — coalesced per valet, applied by drain()
+ *
+ * Over STOMP the valet keeps one authenticated connection, and a ping is a
+ * small typed frame with no auth filter or Map parsing. Pings are parked here
+ * per valet; a burst (app reconnecting, GPS jitter) keeps only the newest, and
+ * drain() feeds it to NearestValetService every drain-ms (250 ms by default).
+ *
+ * Metrics (see /actuator/metrics), tagged channel=http|stomp:
+ *  - valet.location.pings            pings received — compare the rates per channel
+ *  - valet.location.coalesced        STOMP pings replaced by a newer one before drain
+ *  - valet.location.ingest.latency   receipt → live store. HTTP end-to-end time,
+ *                                    auth filter included, is in
+ *                                    http.server.requests{uri=/api/valet/location}
+ */
+@Service
+public class ValetLocationIngest {
+
+    private final NearestValetService nearestValetService;
+
+    private final Counter httpPings;
+    private final Counter stompPings;
+    private final Counter coalesced;
+    private final Timer httpLatency;
+    private final Timer stompLatency;
+
+    private final Map<Long, Ping> latest = new ConcurrentHashMap<>();
+
+    public ValetLocationIngest(NearestValetService nearestValetService, MeterRegistry meterRegistry) {
+        this.nearestValetService = nearestValetService;
+        this.httpPings = meterRegistry.counter("valet.location.pings", "channel", "http");
+        this.stompPings = meterRegistry.counter("valet.location.pings", "channel", "stomp");
+        this.coalesced = meterRegistry.counter("valet.location.coalesced", "channel", "stomp");
+        this.httpLatency = meterRegistry.timer("valet.location.ingest.latency", "channel", "http");
+        this.stompLatency = meterRegistry.timer("valet.location.ingest.latency", "channel", "stomp");
+    }
+
+    private record Ping(double latitude, double longitude, boolean available, long receivedNanos) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Channels
+    // ─────────────────────────────────────────────────────────────────────
+
+    public void fromHttp(Long valetId, double lat, double lon, boolean available) {
+        long received = System.nanoTime();
+        httpPings.increment();
+        nearestValetService.updateValetLocation(valetId, lat, lon, available);
+        httpLatency.record(System.nanoTime() - received, TimeUnit.NANOSECONDS);
+    }
+
+    public void fromStomp(Long valetId, double lat, double lon, boolean available) {
+        stompPings.increment();
+        if (latest.put(valetId, new Ping(lat, lon, available, System.nanoTime())) != null) {
+            coalesced.increment();
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Drain — newest STOMP ping per valet into the live store
+    // ─────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${smartparking.valet-location.drain-ms:250}")
+    public void drain() {
+        for (Long valetId : latest.keySet()) {
+            Ping ping = latest.remove(valetId);
+            if (ping == null) {
+                continue;
+            }
+            try {
+                nearestValetService.updateValetLocation(valetId, ping.latitude(), ping.longitude(), ping.available());
+                stompLatency.record(System.nanoTime() - ping.receivedNanos(), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                System.err.println("[ValetLocation] Ping for valet " + valetId + " failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.repositories.ValetLocationBatchRepository;
+import com.smartparking.repositories.ValetRepository;
+import com.smartparking.utils.GeoGridIndex;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live valet locations, held in memory with write-behind to the valets table.
+ *
+ * The valet app pings every 5 seconds; with one JPQL UPDATE per ping, 2,000
+ * online valets meant ~400 writes/sec on the same table dispatch reads from.
+ * Now:
+ *  - Every ping only replaces the valet's entry here — no DB work.
+ *  - All dispatch reads (nearest valet, ETA, "notify nearby valets") are served
+ *    from this store. Available valets are also kept in a GeoGridIndex, so a
+ *    k-nearest query expands grid rings around the pickup instead of scanning
+ *    every online valet.
+ *  - flush() writes the LATEST position of each changed valet in one JDBC
+ *    batch every smartparking.valet-location.flush-ms (10 s by default).
+ *    Twenty pings from one valet between flushes become one row update.
+ *  - A valet going on/offline invalidates GeoResponseCache around them.
+ *  - A valet with no ping for stale-seconds (60 by default) is dropped and
+ *    written back as unavailable — a closed app no longer looks online.
+ *
+ * The DB position can lag by up to one flush interval; a crash loses at most
+ * that window. Busy/free changes write through immediately.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class ValetLocationStore {
+
+    private final ValetRepository valetRepository;
+    private final ValetLocationBatchRepository batchRepository;
+    private final GeoResponseCache geoResponseCache;
+    private final long staleMillis;
+    private final GeoGridIndex<LiveLocation> availableGrid;
+
+    private final Map<Long, LiveLocation> live = new ConcurrentHashMap<>();
+    // Latest unflushed state per valet — newer pings overwrite older ones
+    private final Map<Long, LiveLocation> pending = new ConcurrentHashMap<>();
+
+    public ValetLocationStore(ValetRepository valetRepository,
+                              ValetLocationBatchRepository batchRepository,
+                              GeoResponseCache geoResponseCache,
+                              @Value("${smartparking.valet-location.stale-seconds:60}") long staleSeconds,
+                              @Value("${smartparking.valet-location.cell-deg:0.02}") double cellDeg) {
+        this.valetRepository = valetRepository;
+        this.batchRepository = batchRepository;
+        this.geoResponseCache = geoResponseCache;
+        this.staleMillis = staleSeconds * 1000;
+        this.availableGrid = new GeoGridIndex<>(cellDeg);
+    }
+
+    public record LiveLocation(Long valetId, double latitude, double longitude,
+                               boolean available, long updatedAtMillis) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Writes — GPS pings and busy/free changes
+    // ─────────────────────────────────────────────────────────────────────
+
+    public void update(Long valetId, double lat, double lon, boolean available) {
+        LiveLocation location = new LiveLocation(valetId, lat, lon, available, System.currentTimeMillis());
+        boolean[] flipped = {false};
+        // Grid is updated inside compute() so it changes in the same order as the live map
+        live.compute(valetId, (id, old) -> {
+            flipped[0] = old == null || old.available() != available;
+            index(location);
+            return location;
+        });
+        pending.put(valetId, location);
+        if (flipped[0]) {
+            geoResponseCache.invalidateAround(lat, lon);
+        }
+    }
+
+    /** Busy/free flips keep the last known position; the DB is updated by the caller. */
+    public void setAvailable(Long valetId, boolean available) {
+        LiveLocation[] flipped = {null};
+        live.computeIfPresent(valetId, (id, l) -> {
+            LiveLocation updated = new LiveLocation(id, l.latitude(), l.longitude(), available, l.updatedAtMillis());
+            index(updated);
+            if (l.available() != available) {
+                flipped[0] = updated;
+            }
+            return updated;
+        });
+        if (flipped[0] != null) {
+            geoResponseCache.invalidateAround(flipped[0].latitude(), flipped[0].longitude());
+        }
+        pending.computeIfPresent(valetId, (id, l) ->
+                new LiveLocation(id, l.latitude(), l.longitude(), available, l.updatedAtMillis()));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Reads — dispatch
+    // ─────────────────────────────────────────────────────────────────────
+
+    public Optional<LiveLocation> get(Long valetId) {
+        return Optional.ofNullable(live.get(valetId));
+    }
+
+    /**
+     * Up to k available, recently-seen valets within maxKm, nearest first.
+     * Ring search over the grid — cost depends on valets nearby, not on the total online.
+     */
+    public List<GeoGridIndex.Hit<LiveLocation>> nearestAvailable(double lat, double lon, int k, double maxKm) {
+        long cutoff = System.currentTimeMillis() - staleMillis;
+        return availableGrid.nearest(lat, lon, k, maxKm, l -> l.updatedAtMillis() >= cutoff);
+    }
+
+    public boolean hasAvailableValets() {
+        return availableGrid.size() > 0;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Write-behind flush + stale expiry
+    // ─────────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${smartparking.valet-location.flush-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LiveLocation> batch = new ArrayList<>(pending.size());
+        for (Long valetId : pending.keySet()) {
+            LiveLocation l = pending.remove(valetId);
+            if (l != null) {
+                batch.add(l);
+            }
+        }
+        try {
+            batchRepository.updateAll(batch);
+        } catch (Exception e) {
+            // Put the batch back unless a newer ping has replaced it meanwhile
+            batch.forEach(l -> pending.putIfAbsent(l.valetId(), l));
+            System.err.println("[ValetLocation] Flush of " + batch.size() + " locations failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${smartparking.valet-location.expire-ms:15000}")
+    public void expireStale() {
+        long cutoff = System.currentTimeMillis() - staleMillis;
+        List<LiveLocation> wentOffline = new ArrayList<>();
+        for (Long valetId : live.keySet()) {
+            live.computeIfPresent(valetId, (id, l) -> {
+                if (l.updatedAtMillis() >= cutoff) {
+                    return l; // pinged again meanwhile
+                }
+                availableGrid.remove(id);
+                if (l.available()) {
+                    pending.putIfAbsent(id, new LiveLocation(id, l.latitude(), l.longitude(), false, l.updatedAtMillis()));
+                    wentOffline.add(l);
+                }
+                return null;
+            });
+        }
+        wentOffline.forEach(l -> geoResponseCache.invalidateAround(l.latitude(), l.longitude()));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Valets marked available before a restart get one stale window to ping again
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long now = System.currentTimeMillis();
+        valetRepository.findAllAvailableValets().stream()
+                .filter(v -> v.getCurrentLatitude() != null && v.getCurrentLongitude() != null)
+                .forEach(v -> {
+                    LiveLocation location = new LiveLocation(
+                            v.getId(), v.getCurrentLatitude(), v.getCurrentLongitude(), true, now);
+                    live.computeIfAbsent(v.getId(), id -> {
+                        index(location);
+                        return location;
+                    });
+                });
+    }
+
+    // Only available valets live in the grid — dispatch never has to skip busy ones
+    private void index(LiveLocation location) {
+        if (location.available()) {
+            availableGrid.put(location.valetId(), location.latitude(), location.longitude(), location);
+        } else {
+            availableGrid.remove(location.valetId());
+        }
+    }
+}
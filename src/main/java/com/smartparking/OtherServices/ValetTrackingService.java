@@ -0,0 +1,224 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.ValetStatus;
+import com.smartparking.entities.valet.ValetRequest;
+import com.smartparking.repositories.ValetRequestRepository;
+import com.smartparking.utils.GeoUtils;
+import com.smartparking.utils.TransactionHooks;
+import com.smartparking.websocket.ValetTrackingMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live valet tracking for customers — one STOMP topic per job:
+ *
+ *   /topic/valet-request/{requestId}/tracking
+ *
+ * Customers used to poll /api/valet/request/{id} to watch their valet come
+ * closer. Now the valet's GPS pings are forwarded here straight from
+ * NearestValetService.updateValetLocation, and ValetServiceImpl reports every
+ * status change, so the app only has to subscribe.
+ *
+ * Rules:
+ *  - Only valets on a live job are tracked; every other ping costs one map lookup.
+ *  - A LOCATION frame goes out at most once per min-interval-seconds (3 s by
+ *    default) and only if the valet moved at least min-move-meters (25 m)
+ *    since the last frame — a valet waiting at a light sends nothing.
+ *  - Locations are only forwarded while the valet is moving for the job
+ *    (ACCEPTED, PICKED_UP, RETURN_REQUESTED); while heading to the customer
+ *    the frame carries the distance and ETA to the pickup point.
+ *  - STATUS frames are sent after the transition commits, and always.
+ *  - While the valet is moving for the job, every ping also goes to the job's
+ *    TripTrail, which is opened on ACCEPTED and dropped once the job leaves
+ *    the tracked set (a completed job's trail has been saved by then). A
+ *    sweep every valet-trail.sweep-ms drops trails of jobs no longer tracked.
+ *  - Live jobs are reloaded from the DB at startup.
+ *
+ * Single-instance only — same trade-off as SlotAvailabilityIndex.
+ */
+@Service
+public class ValetTrackingService {
+
+    // Jobs whose topic stays open
+    private static final Set<ValetStatus> TRACKED = EnumSet.of(
+            ValetStatus.ACCEPTED, ValetStatus.PICKED_UP, ValetStatus.IN_PROGRESS,
+            ValetStatus.PARKED, ValetStatus.RETURN_REQUESTED);
+    // Jobs where the valet's position means something to the customer
+    private static final Set<ValetStatus> MOVING = EnumSet.of(
+            ValetStatus.ACCEPTED, ValetStatus.PICKED_UP, ValetStatus.IN_PROGRESS,
+            ValetStatus.RETURN_REQUESTED);
+    // Valet is on the way to the customer's pickup point
+    private static final Set<ValetStatus> APPROACHING = EnumSet.of(
+            ValetStatus.ACCEPTED, ValetStatus.RETURN_REQUESTED);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ValetLocationStore valetLocationStore;
+    private final ValetRequestRepository valetRequestRepository;
+    private final TripTrailStore tripTrailStore;
+    private final long minIntervalMillis;
+    private final double minMoveKm;
+
+    private final Map<Long, TrackedJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, Long> jobByValet = new ConcurrentHashMap<>();
+
+    public ValetTrackingService(SimpMessagingTemplate messagingTemplate,
+                                ValetLocationStore valetLocationStore,
+                                ValetRequestRepository valetRequestRepository,
+                                TripTrailStore tripTrailStore,
+                                @Value("${smartparking.valet-tracking.min-interval-seconds:3}") long minIntervalSeconds,
+                                @Value("${smartparking.valet-tracking.min-move-meters:25}") double minMoveMeters) {
+        this.messagingTemplate = messagingTemplate;
+        this.valetLocationStore = valetLocationStore;
+        this.valetRequestRepository = valetRequestRepository;
+        this.tripTrailStore = tripTrailStore;
+        this.minIntervalMillis = minIntervalSeconds * 1000;
+        this.minMoveKm = minMoveMeters / 1000.0;
+    }
+
+    // lastLat/lastLon are NaN until the first LOCATION frame
+    private record TrackedJob(Long requestId, Long valetId, ValetStatus status,
+                              double pickupLat, double pickupLon,
+                              double lastLat, double lastLon, long lastSentMillis) {
+
+        TrackedJob sentAt(double lat, double lon, long now) {
+            return new TrackedJob(requestId, valetId, status, pickupLat, pickupLon, lat, lon, now);
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Status changes — called by ValetServiceImpl
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Opens, updates or closes the job's stream once the current transaction commits. */
+    public void onStatusChanged(ValetRequest request) {
+        Long requestId = request.getId();
+        Long valetId = request.getValet() != null ? request.getValet().getId() : null;
+        ValetStatus status = request.getStatus();
+        double pickupLat = request.getPickupLatitude();
+        double pickupLon = request.getPickupLongitude();
+        TransactionHooks.afterCommit(() -> {
+            TrackedJob job = null;
+            if (valetId != null && TRACKED.contains(status)) {
+                job = new TrackedJob(requestId, valetId, status, pickupLat, pickupLon, Double.NaN, Double.NaN, 0);
+                jobs.put(requestId, job);
+                jobByValet.put(valetId, requestId);
+                // Job first, trail second — the sweep never sees a trail without its job
+                if (status == ValetStatus.ACCEPTED) {
+                    tripTrailStore.start(requestId);
+                }
+            } else {
+                TrackedJob closed = jobs.remove(requestId);
+                if (closed != null) {
+                    jobByValet.remove(closed.valetId(), requestId);
+                }
+                tripTrailStore.discard(requestId);
+            }
+            publishStatus(requestId, valetId, status, job);
+        });
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  GPS pings — called by NearestValetService
+    // ─────────────────────────────────────────────────────────────────────
+
+    public void onLocation(Long valetId, double lat, double lon) {
+        Long requestId = jobByValet.get(valetId);
+        if (requestId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        TrackedJob current = jobs.get(requestId);
+        if (current != null && current.valetId().equals(valetId) && MOVING.contains(current.status())) {
+            tripTrailStore.record(requestId, lat, lon, now);
+        }
+        TrackedJob[] due = {null};
+        jobs.computeIfPresent(requestId, (id, job) -> {
+            if (!job.valetId().equals(valetId) || !shouldSend(job, lat, lon, now)) {
+                return job;
+            }
+            due[0] = job;
+            return job.sentAt(lat, lon, now);
+        });
+        if (due[0] != null) {
+            send(locationFrame(due[0], lat, lon, now));
+        }
+    }
+
+    /** True while the valet holds a live job — ValetDispatcher skips them. */
+    public boolean isOnJob(Long valetId) {
+        return jobByValet.containsKey(valetId);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Startup — reopen streams for jobs that were live before a restart
+    // ─────────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : valetRequestRepository.findTrackedJobs(List.copyOf(TRACKED))) {
+            TrackedJob job = new TrackedJob((Long) row[0], (Long) row[1], (ValetStatus) row[2],
+                    (Double) row[3], (Double) row[4], Double.NaN, Double.NaN, 0);
+            jobs.putIfAbsent(job.requestId(), job);
+            jobByValet.putIfAbsent(job.valetId(), job.requestId());
+        }
+    }
+
+    // Backstop for jobs that left the tracked set without a status change passing through here
+    @Scheduled(fixedDelayString = "${smartparking.valet-trail.sweep-ms:600000}")
+    public void sweepTrails() {
+        tripTrailStore.retainOnly(jobs.keySet());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private boolean shouldSend(TrackedJob job, double lat, double lon, long now) {
+        if (!MOVING.contains(job.status()) || now - job.lastSentMillis() < minIntervalMillis) {
+            return false;
+        }
+        return Double.isNaN(job.lastLat())
+                || GeoUtils.calculateDistanceKm(job.lastLat(), job.lastLon(), lat, lon) >= minMoveKm;
+    }
+
+    // The status frame carries the valet's last known position so the map can draw them straight away
+    private void publishStatus(Long requestId, Long valetId, ValetStatus status, TrackedJob job) {
+        long now = System.currentTimeMillis();
+        ValetTrackingMessage frame = new ValetTrackingMessage(
+                requestId, "STATUS", status, valetId, null, null, null, null, now);
+        if (job != null && MOVING.contains(status)) {
+            ValetLocationStore.LiveLocation live = valetLocationStore.get(valetId).orElse(null);
+            if (live != null) {
+                frame = locationFrame(job, live.latitude(), live.longitude(), now);
+                frame.setType("STATUS");
+                jobs.computeIfPresent(requestId, (id, j) -> j.sentAt(live.latitude(), live.longitude(), now));
+            }
+        }
+        send(frame);
+    }
+
+    private ValetTrackingMessage locationFrame(TrackedJob job, double lat, double lon, long now) {
+        Double distanceKm = null;
+        Integer etaMinutes = null;
+        if (APPROACHING.contains(job.status())) {
+            distanceKm = GeoUtils.calculateDistanceKm(lat, lon, job.pickupLat(), job.pickupLon());
+            etaMinutes = GeoUtils.estimatedMinutes(distanceKm);
+        }
+        return new ValetTrackingMessage(job.requestId(), "LOCATION", job.status(), job.valetId(),
+                lat, lon, distanceKm, etaMinutes, now);
+    }
+
+    private void send(ValetTrackingMessage frame) {
+        messagingTemplate.convertAndSend("/topic/valet-request/" + frame.getRequestId() + "/tracking", frame);
+    }
+}
@@ -3,9 +3,11 @@ package com.smartparking;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching  // ✅ Required for @Cacheable in CustomUserDetailsService to work
+@EnableScheduling // Required for @Scheduled jobs (slot index reconcile, overdue rental alerts)
 public class SmartparkingApplication {
 
     public static void main(String[] args) {
@@ -78,11 +78,13 @@ public class SecurityConfig {
                         // ── Public ──────────────────────────────────────────────────────
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/parking-lots/nearby").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/parking-lots/clusters").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/parking-lots/{lotId}").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/valet/eta").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/valet/fare-estimate").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/rental-cars/nearby").permitAll()
                         .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers("/ws-native").permitAll()
 
                         // ── Dashboard ────────────────────────────────────────────────────
                         .requestMatchers("/api/dashboard/customer/**").hasRole("CUSTOMER")
@@ -115,6 +117,7 @@ public class SecurityConfig {
 
                         // ── Bookings ─────────────────────────────────────────────────────
                         .requestMatchers(HttpMethod.POST, "/api/bookings/reserve").hasRole("CUSTOMER")
+                        .requestMatchers(HttpMethod.POST, "/api/bookings/reserve/bulk").hasRole("CUSTOMER")
                         .requestMatchers(HttpMethod.GET,  "/api/bookings/customer/**").hasRole("CUSTOMER")
                         .requestMatchers(HttpMethod.GET,  "/api/bookings/{bookingId}").authenticated()
                         .requestMatchers(HttpMethod.POST, "/api/bookings/{bookingId}/cancel").hasRole("CUSTOMER")
@@ -129,6 +132,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET,  "/api/valet/jobs/available").hasRole("VALET")
                         .requestMatchers(HttpMethod.GET,  "/api/valet/jobs/active").hasRole("VALET")
                         .requestMatchers(HttpMethod.POST, "/api/valet/*/accept").hasRole("VALET")
+                        .requestMatchers(HttpMethod.POST, "/api/valet/*/decline").hasRole("VALET")
                         .requestMatchers(HttpMethod.POST, "/api/valet/*/verify-pickup").hasRole("VALET")
                         .requestMatchers(HttpMethod.POST, "/api/valet/*/park").hasRole("VALET")
                         .requestMatchers(HttpMethod.POST, "/api/valet/*/verify-dropoff").hasRole("VALET")
@@ -1,14 +1,24 @@
 package com.smartparking.controller;
 
+import com.smartparking.OtherServices.IdempotencyService;
 import com.smartparking.dtos.request.BookingRequestDTO;
+import com.smartparking.dtos.request.BulkBookingRequestDTO;
+import com.smartparking.dtos.response.BookingPageDTO;
 import com.smartparking.dtos.response.BookingResponseDTO;
 import com.smartparking.service.BookingService;
+import com.smartparking.utils.ConflictRetry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -17,9 +27,27 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final int NDJSON_FLUSH_EVERY = 100;
+
+    // Optional Idempotency-Key header — a retry with the same key returns the original booking
     @PostMapping("/reserve")
-    public ResponseEntity<BookingResponseDTO> reserveSlot(@RequestBody BookingRequestDTO requestDTO) {
-        return new ResponseEntity<>(bookingService.createBooking(requestDTO), HttpStatus.CREATED);
+    public ResponseEntity<BookingResponseDTO> reserveSlot(
+            @RequestBody BookingRequestDTO requestDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("booking-reserve", idempotencyKey, requestDTO, BookingResponseDTO.class,
+                () -> new ResponseEntity<>(bookingService.createBooking(requestDTO), HttpStatus.CREATED));
+    }
+
+    // Group / fleet booking — all slots are claimed in one transaction or none are
+    @PostMapping("/reserve/bulk")
+    public ResponseEntity<List<BookingResponseDTO>> reserveSlots(@RequestBody BulkBookingRequestDTO requestDTO) {
+        return new ResponseEntity<>(bookingService.createBulkBooking(requestDTO), HttpStatus.CREATED);
     }
 
     @GetMapping("/{bookingId}")
@@ -29,7 +57,7 @@ public class BookingController {
 
     @PostMapping("/{bookingId}/cancel")
     public ResponseEntity<BookingResponseDTO> cancelBooking(@PathVariable Long bookingId) {
-        return ResponseEntity.ok(bookingService.cancelBooking(bookingId));
+        return ResponseEntity.ok(ConflictRetry.run(() -> bookingService.cancelBooking(bookingId)));
     }
 
     @GetMapping("/customer/{customerId}")
@@ -37,16 +65,32 @@ public class BookingController {
         return new ResponseEntity<>(bookingService.getBookingsByCustomer(customerId), HttpStatus.OK);
     }
 
+    // ?limit=50[&cursor=...] — keyset page; pass back nextCursor for the following page
+    @GetMapping(value = "/customer/{customerId}", params = "limit")
+    public ResponseEntity<BookingPageDTO> getCustomerBookingsPage(
+            @PathVariable Long customerId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(bookingService.getBookingsByCustomerPage(customerId, cursor, limit));
+    }
+
+    // ?format=ndjson — whole history, one JSON object per line, constant memory
+    @GetMapping(value = "/customer/{customerId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamCustomerBookings(@PathVariable Long customerId) {
+        return ndjson(sink -> bookingService.streamBookingsByCustomer(customerId, sink));
+    }
+
     @PostMapping("/verify-code")
     public ResponseEntity<BookingResponseDTO> verifyEntryCode(
             @RequestParam String code,
             @RequestParam Long lotId) {
-        return new ResponseEntity<>(bookingService.verifyEntryCode(code, lotId), HttpStatus.OK);
+        return new ResponseEntity<>(
+                ConflictRetry.run(() -> bookingService.verifyEntryCode(code, lotId)), HttpStatus.OK);
     }
 
     @PostMapping("/checkout")
     public ResponseEntity<BookingResponseDTO> checkoutBooking(@RequestParam String code) {
-        return new ResponseEntity<>(bookingService.checkoutBooking(code), HttpStatus.OK);
+        return new ResponseEntity<>(ConflictRetry.run(() -> bookingService.checkoutBooking(code)), HttpStatus.OK);
     }
 
     @GetMapping("/lot/{lotId}")
@@ -54,9 +98,48 @@ public class BookingController {
         return new ResponseEntity<>(bookingService.getBookingsByLot(lotId), HttpStatus.OK);
     }
 
+    @GetMapping(value = "/lot/{lotId}", params = "limit")
+    public ResponseEntity<BookingPageDTO> getLotBookingsPage(
+            @PathVariable Long lotId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(bookingService.getBookingsByLotPage(lotId, cursor, limit));
+    }
+
+    @GetMapping(value = "/lot/{lotId}", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamLotBookings(@PathVariable Long lotId) {
+        return ndjson(sink -> bookingService.streamBookingsByLot(lotId, sink));
+    }
+
     // NEW — was missing, caused the 500
     @GetMapping("/lot-admin/{adminId}")
     public ResponseEntity<List<BookingResponseDTO>> getBookingsByAdmin(@PathVariable Long adminId) {
         return new ResponseEntity<>(bookingService.getBookingsByAdmin(adminId), HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    // Writes each row as it comes off the DB cursor, flushing every NDJSON_FLUSH_EVERY rows
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<BookingResponseDTO>> producer) {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            try {
+                producer.accept(row -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(row));
+                        out.write('\n');
+                        if (++written[0] % NDJSON_FLUSH_EVERY == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // client went away — abort the DB stream
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+}
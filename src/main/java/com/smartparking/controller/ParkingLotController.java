@@ -1,6 +1,7 @@
 package com.smartparking.controller;
 
 import com.smartparking.dtos.request.ParkingLotRequestDTO;
+import com.smartparking.dtos.response.LotClusterDTO;
 import com.smartparking.dtos.response.ParkingLotResponseDTO;
 import com.smartparking.service.ParkingLotService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -86,4 +87,17 @@ public class ParkingLotController {
         List<ParkingLotResponseDTO> nearbyLots = parkingLotService.getNearbyLots(latitude, longitude, limit);
         return new ResponseEntity<>(nearbyLots, HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    // GET: /api/parking-lots/clusters?minLat=18.4&maxLat=18.7&minLng=73.7&maxLng=74.0&zoom=12
+    @GetMapping("/clusters")
+    public ResponseEntity<List<LotClusterDTO>> getLotClusters(
+            @RequestParam double minLat,
+            @RequestParam double maxLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLng,
+            @RequestParam int zoom) {
+
+        return new ResponseEntity<>(
+                parkingLotService.getLotClusters(minLat, maxLat, minLng, maxLng, zoom), HttpStatus.OK);
+    }
+}
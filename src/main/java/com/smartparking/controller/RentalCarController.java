@@ -8,11 +8,16 @@ import com.smartparking.entities.rental.RentalCar;
 import com.smartparking.entities.users.Customer;
 import com.smartparking.repositories.CarOwnerRepository;
 import com.smartparking.repositories.CarRentalBookingRepository;
+import com.smartparking.OtherServices.BookingCodeGenerator;
+import com.smartparking.OtherServices.IdempotencyService;
 import com.smartparking.OtherServices.NotificationService;
+import com.smartparking.OtherServices.RentalCarSpatialIndex;
 import com.smartparking.repositories.CustomerRepository;
 import com.smartparking.repositories.RentalCarRepository;
 import com.smartparking.repositories.RentalCompanyRepository;
+import com.smartparking.utils.GeoGridIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -25,7 +30,6 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
@@ -38,6 +42,12 @@ public class RentalCarController {
     @Autowired private CarRentalBookingRepository  carRentalBookingRepository;
     @Autowired private CustomerRepository          customerRepository;
     @Autowired private NotificationService          notificationService;
+    @Autowired private BookingCodeGenerator         bookingCodeGenerator;
+    @Autowired private IdempotencyService           idempotencyService;
+    @Autowired private RentalCarSpatialIndex        rentalCarSpatialIndex;
+
+    @Value("${smartparking.rental-index.nearby-max-km:100}")
+    private double nearbyMaxKm;
 
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
@@ -53,7 +63,9 @@ public class RentalCarController {
                 .orElseThrow(() -> new RuntimeException("Car owner not found"));
         car.setCarOwner(owner);
         car.setStatus(RentalCarStatus.AVAILABLE);
-        return new ResponseEntity<>(rentalCarRepository.save(car), HttpStatus.CREATED);
+        RentalCar saved = rentalCarRepository.save(car);
+        rentalCarSpatialIndex.onCarSaved(saved);
+        return new ResponseEntity<>(saved, HttpStatus.CREATED);
     }
 
     // FleetAdmin lists a company car
@@ -64,7 +76,9 @@ public class RentalCarController {
                 .orElseThrow(() -> new RuntimeException("Company not found"));
         car.setRentalCompany(company);
         car.setStatus(RentalCarStatus.AVAILABLE);
-        return new ResponseEntity<>(rentalCarRepository.save(car), HttpStatus.CREATED);
+        RentalCar saved = rentalCarRepository.save(car);
+        rentalCarSpatialIndex.onCarSaved(saved);
+        return new ResponseEntity<>(saved, HttpStatus.CREATED);
     }
 
     // Get all cars owned by a CarOwner
@@ -81,6 +95,8 @@ public class RentalCarController {
 
     // Customer finds nearby available cars — optional vehicleType filter
     // Example: GET /api/rental-cars/nearby?lat=18.6&lng=73.8&type=BIKE
+    // k-NN runs on RentalCarSpatialIndex; the DB is only asked when no car at all is
+    // within nearbyMaxKm (an empty area, or the index still warming up)
     @GetMapping("/nearby")
     public ResponseEntity<List<RentalCar>> getNearbyCars(
             @RequestParam double lat,
@@ -88,10 +104,23 @@ public class RentalCarController {
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(required = false) VehicleType type) {
 
-        List<RentalCar> cars = (type != null)
-                ? rentalCarRepository.findNearbyAvailableCarsByType(lat, lng, type.name(), limit)
-                : rentalCarRepository.findNearbyAvailableCars(lat, lng, limit);
+        List<GeoGridIndex.Hit<Long>> hits = rentalCarSpatialIndex.nearest(
+                lat, lng, limit, nearbyMaxKm, RentalCarStatus.AVAILABLE, type);
+        if (hits.isEmpty()) {
+            List<RentalCar> cars = (type != null)
+                    ? rentalCarRepository.findNearbyAvailableCarsByType(lat, lng, type.name(), limit)
+                    : rentalCarRepository.findNearbyAvailableCars(lat, lng, limit);
+            return ResponseEntity.ok(cars);
+        }
 
+        // findAllById ignores order — put the cars back in distance order
+        List<Long> ids = hits.stream().map(GeoGridIndex.Hit::value).toList();
+        Map<Long, RentalCar> byId = rentalCarRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(RentalCar::getId, c -> c));
+        List<RentalCar> cars = ids.stream()
+                .map(byId::get)
+                .filter(c -> c != null && c.getStatus() == RentalCarStatus.AVAILABLE)
+                .toList();
         return ResponseEntity.ok(cars);
     }
 
@@ -102,18 +131,27 @@ public class RentalCarController {
         RentalCar car = rentalCarRepository.findById(carId)
                 .orElseThrow(() -> new RuntimeException("Car not found"));
         car.setStatus(status);
-        return ResponseEntity.ok(rentalCarRepository.save(car));
+        RentalCar saved = rentalCarRepository.save(car);
+        rentalCarSpatialIndex.onCarSaved(saved);
+        return ResponseEntity.ok(saved);
     }
 
     // ─────────────────────────────────────────────────────────
     // BOOKING
     // ─────────────────────────────────────────────────────────
 
-    // Customer books a rental car
+    // Customer books a rental car — optional Idempotency-Key header makes retries safe
     @PostMapping("/{carId}/book")
     @Transactional
     public ResponseEntity<?> bookCar(@PathVariable Long carId,
-                                     @RequestBody Map<String, Object> body) {
+                                     @RequestBody Map<String, Object> body,
+                                     @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                     String idempotencyKey) {
+        return idempotencyService.execute("rental-book:" + carId, idempotencyKey, body, Object.class,
+                () -> doBookCar(carId, body));
+    }
+
+    private ResponseEntity<?> doBookCar(Long carId, Map<String, Object> body) {
 
         if (body.get("customerId") == null ||
                 body.get("startTime")  == null ||
@@ -147,10 +185,7 @@ public class RentalCarController {
         double total   = (car.getDailyRate()      != null ? car.getDailyRate()      : 0) * days;
         double deposit =  car.getSecurityDeposit() != null ? car.getSecurityDeposit() : 0;
 
-        String code;
-        do {
-            code = "CR-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (carRentalBookingRepository.findByBookingCode(code).isPresent());
+        String code = bookingCodeGenerator.nextRentalCode();
 
         CarRentalBooking booking = new CarRentalBooking();
         booking.setBookingCode(code);
@@ -167,6 +202,7 @@ public class RentalCarController {
 
         car.setStatus(RentalCarStatus.RENTED);
         rentalCarRepository.save(car);
+        rentalCarSpatialIndex.onCarSaved(car);
 
         CarRentalBooking saved = carRentalBookingRepository.save(booking);
 
@@ -320,6 +356,7 @@ public class RentalCarController {
         RentalCar car = booking.getRentalCar();
         car.setStatus(RentalCarStatus.AVAILABLE);
         rentalCarRepository.save(car);
+        rentalCarSpatialIndex.onCarSaved(car);
         carRentalBookingRepository.save(booking);
 
         // Notify customer: rental completed
@@ -3,6 +3,7 @@ package com.smartparking.controller;
 import com.smartparking.dtos.request.ValetBookingRequestDTO;
 import com.smartparking.dtos.response.ValetResponseDTO;
 import com.smartparking.service.ValetService;
+import com.smartparking.utils.ConflictRetry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -39,14 +40,22 @@ public class ValetController {
     public ResponseEntity<ValetResponseDTO> acceptJob(
             @PathVariable Long requestId,
             @RequestParam Long valetId) {
-        return new ResponseEntity<>(valetService.acceptJob(requestId, valetId), HttpStatus.OK);
+        return new ResponseEntity<>(ConflictRetry.run(() -> valetService.acceptJob(requestId, valetId)), HttpStatus.OK);
+    }
+
+    @PostMapping("/{requestId}/decline")
+    public ResponseEntity<Void> declineOffer(
+            @PathVariable Long requestId,
+            @RequestParam Long valetId) {
+        valetService.declineOffer(requestId, valetId);
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/{requestId}/verify-pickup")
     public ResponseEntity<ValetResponseDTO> verifyPickup(
             @PathVariable Long requestId,
             @RequestParam String otp) {
-        return new ResponseEntity<>(valetService.verifyPickup(requestId, otp), HttpStatus.OK);
+        return new ResponseEntity<>(ConflictRetry.run(() -> valetService.verifyPickup(requestId, otp)), HttpStatus.OK);
     }
 
     @PostMapping(value = "/{requestId}/park", consumes = "multipart/form-data")
@@ -62,14 +71,14 @@ public class ValetController {
     @PostMapping("/{requestId}/request-return")
     public ResponseEntity<ValetResponseDTO> requestVehicleBack(
             @PathVariable Long requestId) {
-        return new ResponseEntity<>(valetService.requestVehicleBack(requestId), HttpStatus.OK);
+        return new ResponseEntity<>(ConflictRetry.run(() -> valetService.requestVehicleBack(requestId)), HttpStatus.OK);
     }
 
     @PostMapping("/{requestId}/verify-dropoff")
     public ResponseEntity<ValetResponseDTO> verifyDropoff(
             @PathVariable Long requestId,
             @RequestParam String otp) {
-        return new ResponseEntity<>(valetService.verifyDropoff(requestId, otp), HttpStatus.OK);
+        return new ResponseEntity<>(ConflictRetry.run(() -> valetService.verifyDropoff(requestId, otp)), HttpStatus.OK);
     }
 
     @GetMapping("/request/{requestId}")
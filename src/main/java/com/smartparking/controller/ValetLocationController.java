@@ -1,12 +1,19 @@
 package com.smartparking.controller;
 
 import com.smartparking.OtherServices.FareCalculationService;
+import com.smartparking.OtherServices.GeoResponseCache;
 import com.smartparking.OtherServices.NearestLotService;
 import com.smartparking.OtherServices.NearestValetService;
+import com.smartparking.OtherServices.ValetJobBroadcaster;
+import com.smartparking.OtherServices.ValetLocationIngest;
 import com.smartparking.dtos.response.FareResponseDTO;
 
 import com.smartparking.entities.valet.ValetFare;
+import com.smartparking.security.StompPrincipal;
+import com.smartparking.websocket.ValetLocationPing;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -17,6 +24,7 @@ import java.util.Map;
  *
  * Handles 4 things:
  *  1. Valet app sends GPS ping every 5 seconds → POST /api/valet/location
+ *                                                or STOMP SEND /app/valet/location
  *  2. Customer checks ETA before booking       → GET  /api/valet/eta
  *  3. Customer sees fare estimate              → GET  /api/valet/fare-estimate
  *  4. Customer sees final bill after job       → GET  /api/valet/fare/{requestId}
@@ -29,13 +37,19 @@ public class ValetLocationController {
     private final NearestValetService nearestValetService;
     private final NearestLotService nearestLotService;
     private final FareCalculationService fareCalculationService;
+    private final GeoResponseCache geoResponseCache;
+    private final ValetLocationIngest valetLocationIngest;
 
     public ValetLocationController(NearestValetService nearestValetService,
                                    NearestLotService nearestLotService,
-                                   FareCalculationService fareCalculationService) {
+                                   FareCalculationService fareCalculationService,
+                                   GeoResponseCache geoResponseCache,
+                                   ValetLocationIngest valetLocationIngest) {
         this.nearestValetService    = nearestValetService;
         this.nearestLotService      = nearestLotService;
         this.fareCalculationService = fareCalculationService;
+        this.geoResponseCache       = geoResponseCache;
+        this.valetLocationIngest    = valetLocationIngest;
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -53,9 +67,24 @@ public class ValetLocationController {
         double  lon       = Double.parseDouble(body.get("longitude").toString());
         boolean available = Boolean.parseBoolean(body.get("available").toString());
 
-        nearestValetService.updateValetLocation(valetId, lat, lon, available);
+        valetLocationIngest.fromHttp(valetId, lat, lon, available);
 
-        return ResponseEntity.ok(Map.of("status", "location updated"));
+        // The app subscribes to /topic/valet-jobs/region/{jobRegion} to hear about unplaced jobs nearby
+        return ResponseEntity.ok(Map.of(
+                "status", "location updated",
+                "jobRegion", ValetJobBroadcaster.regionOf(lat, lon)));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  1b. Same ping over the valet's STOMP connection
+    //
+    //  SEND /app/valet/location
+    //  Body: { "latitude": 18.5204, "longitude": 73.8567, "available": true }
+    //  The valet is the connection's user (StompAuthInterceptor); no reply frame.
+    // ─────────────────────────────────────────────────────────────────────
+    @MessageMapping("/valet/location")
+    public void ingestLocation(@Payload ValetLocationPing ping, StompPrincipal valet) {
+        valetLocationIngest.fromStomp(valet.userId(), ping.getLatitude(), ping.getLongitude(), ping.isAvailable());
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -68,17 +97,21 @@ public class ValetLocationController {
     public ResponseEntity<Map<String, Object>> getETA(
             @RequestParam double lat,
             @RequestParam double lon) {
+        // Same geohash cell → same answer for ~15 s; concurrent misses compute once
+        return ResponseEntity.ok(geoResponseCache.get("eta", lat, lon, this::computeEta));
+    }
 
+    private Map<String, Object> computeEta(double lat, double lon) {
         NearestValetService.ValetETA      valetETA  = nearestValetService.getNearestValetETA(lat, lon);
         NearestLotService.NearestLotResult lotResult = nearestLotService.findNearestAvailableLot(lat, lon);
 
-        return ResponseEntity.ok(Map.of(
+        return Map.of(
                 "valetEtaMinutes",  valetETA.etaMinutes(),
                 "valetDistanceKm",  valetETA.distanceKm(),
                 "nearestLotName",   lotResult.parkingLot().getName(),
                 "nearestLotDistKm", lotResult.distanceKm(),
                 "nearestLotEtaMin", lotResult.etaMinutes()
-        ));
+        );
     }
 
     // ─────────────────────────────────────────────────────────────────────
@@ -90,60 +123,67 @@ public class ValetLocationController {
     public ResponseEntity<FareResponseDTO> getFareEstimate(
             @RequestParam double lat,
             @RequestParam double lon) {
-
         try {
-            NearestValetService.ValetETA       valetETA  = nearestValetService.getNearestValetETA(lat, lon);
-            NearestLotService.NearestLotResult lotResult = nearestLotService.findNearestAvailableLot(lat, lon);
-
-            double pickupDist  = valetETA.distanceKm();
-            double parkingDist = lotResult.distanceKm();
-            double returnDist  = parkingDist;
-            double totalDist   = pickupDist + parkingDist + returnDist;
-
-            double distanceFare = totalDist * 12.0;
-            double parkingFare  = 3.0 * 30.0;
-            double total        = 50.0 + distanceFare + parkingFare;
-
-            return ResponseEntity.ok(FareResponseDTO.builder()
-                    .pickupDistanceKm(round(pickupDist))
-                    .parkingDistanceKm(round(parkingDist))
-                    .returnDistanceKm(round(returnDist))
-                    .totalDistanceKm(round(totalDist))
-                    .baseFare(50.0)
-                    .distanceFare(round(distanceFare))
-                    .parkingFare(parkingFare)
-                    .totalFare(round(total))
-                    .hoursParked(3.0)
-                    .isEstimate(true)
-                    .isSurge(false)
-                    .surgeMultiplier(1.0)
-                    .valetEtaMinutes(valetETA.etaMinutes())
-                    .nearestLotName(lotResult.parkingLot().getName())
-                    .nearestLotDistanceKm(round(parkingDist))
-                    .paymentStatus("ESTIMATE")
-                    .build());
-
-        } catch (Exception e) {
+            return ResponseEntity.ok(geoResponseCache.get("fare-estimate", lat, lon, this::computeFareEstimate));
+        } catch (RuntimeException e) {
             // No valets / lots in DB yet — return a placeholder estimate so the
             // booking form still renders. The user can still request a valet.
-            return ResponseEntity.ok(FareResponseDTO.builder()
-                    .baseFare(50.0)
-                    .distanceFare(0.0)
-                    .parkingFare(90.0)
-                    .totalFare(140.0)
-                    .totalDistanceKm(0.0)
-                    .hoursParked(3.0)
-                    .isEstimate(true)
-                    .isSurge(false)
-                    .surgeMultiplier(1.0)
-                    .valetEtaMinutes(15)
-                    .nearestLotName("Locating nearest lot...")
-                    .nearestLotDistanceKm(0.0)
-                    .paymentStatus("ESTIMATE")
-                    .build());
+            // Built outside the cache, so the cell gets a real answer as soon as one exists.
+            return ResponseEntity.ok(placeholderFareEstimate());
         }
     }
 
+    private FareResponseDTO computeFareEstimate(double lat, double lon) {
+        NearestValetService.ValetETA       valetETA  = nearestValetService.getNearestValetETA(lat, lon);
+        NearestLotService.NearestLotResult lotResult = nearestLotService.findNearestAvailableLot(lat, lon);
+
+        double pickupDist  = valetETA.distanceKm();
+        double parkingDist = lotResult.distanceKm();
+        double returnDist  = parkingDist;
+        double totalDist   = pickupDist + parkingDist + returnDist;
+
+        double distanceFare = totalDist * 12.0;
+        double parkingFare  = 3.0 * 30.0;
+        double total        = 50.0 + distanceFare + parkingFare;
+
+        return FareResponseDTO.builder()
+                .pickupDistanceKm(round(pickupDist))
+                .parkingDistanceKm(round(parkingDist))
+                .returnDistanceKm(round(returnDist))
+                .totalDistanceKm(round(totalDist))
+                .baseFare(50.0)
+                .distanceFare(round(distanceFare))
+                .parkingFare(parkingFare)
+                .totalFare(round(total))
+                .hoursParked(3.0)
+                .isEstimate(true)
+                .isSurge(false)
+                .surgeMultiplier(1.0)
+                .valetEtaMinutes(valetETA.etaMinutes())
+                .nearestLotName(lotResult.parkingLot().getName())
+                .nearestLotDistanceKm(round(parkingDist))
+                .paymentStatus("ESTIMATE")
+                .build();
+    }
+
+    private FareResponseDTO placeholderFareEstimate() {
+        return FareResponseDTO.builder()
+                .baseFare(50.0)
+                .distanceFare(0.0)
+                .parkingFare(90.0)
+                .totalFare(140.0)
+                .totalDistanceKm(0.0)
+                .hoursParked(3.0)
+                .isEstimate(true)
+                .isSurge(false)
+                .surgeMultiplier(1.0)
+                .valetEtaMinutes(15)
+                .nearestLotName("Locating nearest lot...")
+                .nearestLotDistanceKm(0.0)
+                .paymentStatus("ESTIMATE")
+                .build();
+    }
+
     // ─────────────────────────────────────────────────────────────────────
     //  4. Get final fare after job is complete
     //
@@ -161,8 +201,9 @@ public class ValetLocationController {
                 .pickupDistanceKm(fare.getPickupDistanceKm())
                 .parkingDistanceKm(fare.getParkingDistanceKm())
                 .returnDistanceKm(fare.getReturnDistanceKm())
-                .totalDistanceKm(
-                        fare.getPickupDistanceKm() +
+                .totalDistanceKm(fare.getTravelledDistanceKm() != null
+                        ? fare.getTravelledDistanceKm()
+                        : fare.getPickupDistanceKm() +
                                 fare.getParkingDistanceKm() +
                                 fare.getReturnDistanceKm()
                 )
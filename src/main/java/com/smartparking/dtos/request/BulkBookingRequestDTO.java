@@ -0,0 +1,34 @@
+package com.smartparking.dtos.request;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Group / fleet reservation — many slots for one customer and one time window.
+ *
+ * {
+ *   "customerId": 7,
+ *   "entryTime": "2026-03-01T09:00:00",
+ *   "exitTime":  "2026-03-01T18:00:00",
+ *   "items": [
+ *     { "parkingLotId": 1, "slotType": "CAR", "count": 40 },
+ *     { "parkingLotId": 1, "slotType": "EV",  "count": 5  },
+ *     { "parkingLotId": 2, "slotType": "BUS", "count": 2  }
+ *   ]
+ * }
+ */
+@Data
+public class BulkBookingRequestDTO {
+    private Long customerId;
+    private LocalDateTime entryTime;
+    private LocalDateTime exitTime;
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private Long parkingLotId;
+        private String slotType;
+        private int count;
+    }
+}
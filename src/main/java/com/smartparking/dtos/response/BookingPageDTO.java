@@ -0,0 +1,16 @@
+package com.smartparking.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One page of booking history. nextCursor is null on the last page.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageDTO {
+    private List<BookingResponseDTO> items;
+    private String nextCursor;
+}
@@ -1,10 +1,15 @@
 package com.smartparking.dtos.response;
 
 import com.smartparking.entities.nums.BookingStatus;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
+// @AllArgsConstructor: target of the "SELECT new ..." projections in BookingRepository — keep field order in sync
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookingResponseDTO {
     private Long id;
     private String bookingCode;
@@ -0,0 +1,17 @@
+package com.smartparking.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One map marker: a group of lots at the requested zoom. lotId is set only when the cluster is a single lot.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotClusterDTO {
+    private double latitude;   // centroid of the lots in the cluster
+    private double longitude;
+    private int lotCount;
+    private long availableSlots;
+    private Long lotId;
+}
@@ -51,4 +51,13 @@ public class Booking {
 
     private String dropoffOtp;
     private String pickupOtp;
+
+    // Optimistic lock — every update becomes UPDATE ... WHERE id = ? AND version = ?
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // True when the booking only holds a calendar window and the slot is claimed at check-in
+    @Column(nullable = false)
+    private boolean advanceReservation = false;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.smartparking.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * How far each node's BookingCodeGenerator may have issued codes, in seconds
+ * since the generator's epoch. A restarted node starts above this mark, so a
+ * restart or a clock stepped back never reissues a code.
+ */
+@Entity
+@Table(name = "booking_code_watermarks")
+@Data
+public class BookingCodeWatermark {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "reserved_until", nullable = false)
+    private Long reservedUntil;
+}
@@ -0,0 +1,51 @@
+package com.smartparking.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * The stored response of a POST that carried an Idempotency-Key header.
+ * A retry with the same key gets this response back instead of running again.
+ * Rows expire after smartparking.idempotency.ttl-hours and are purged hourly.
+ *
+ * The row is claimed (statusCode PENDING) in the same transaction as the work
+ * and filled in before it commits, so a committed row always has a response.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"scoped_key"}))
+@Data
+public class IdempotencyRecord {
+
+    public static final int PENDING = 0;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // endpoint + caller + client key — the same key from two users never collides
+    @Column(name = "scoped_key", nullable = false, length = 400)
+    private String scopedKey;
+
+    // SHA-256 of the request body — the same key with a different body is rejected
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code", nullable = false)
+    private int statusCode;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,8 +1,26 @@
 package com.smartparking.entities.nums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum BookingStatus {
     PENDING,   // Added for when a user books on their phone but hasn't arrived yet
     ACTIVE,    // They are currently parked in the lot
     COMPLETED, // They have left the lot
-    CANCELLED
-}
\ No newline at end of file
+    CANCELLED;
+
+    // Allowed lifecycle moves — anything else is a lost update or a client bug
+    private static final Map<BookingStatus, Set<BookingStatus>> TRANSITIONS = new EnumMap<>(BookingStatus.class);
+    static {
+        TRANSITIONS.put(PENDING,   EnumSet.of(ACTIVE, CANCELLED));
+        TRANSITIONS.put(ACTIVE,    EnumSet.of(COMPLETED, CANCELLED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(BookingStatus.class));
+        TRANSITIONS.put(CANCELLED, EnumSet.noneOf(BookingStatus.class));
+    }
+
+    public boolean canTransitionTo(BookingStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+}
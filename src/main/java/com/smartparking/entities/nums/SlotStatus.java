@@ -1,7 +1,24 @@
 package com.smartparking.entities.nums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum SlotStatus {
     AVAILABLE,
     OCCUPIED,
-    MAINTENANCE
-}
\ No newline at end of file
+    MAINTENANCE;
+
+    // Allowed moves — a slot is never parked in while under maintenance
+    private static final Map<SlotStatus, Set<SlotStatus>> TRANSITIONS = new EnumMap<>(SlotStatus.class);
+    static {
+        TRANSITIONS.put(AVAILABLE,   EnumSet.of(OCCUPIED, MAINTENANCE));
+        TRANSITIONS.put(OCCUPIED,    EnumSet.of(AVAILABLE));
+        TRANSITIONS.put(MAINTENANCE, EnumSet.of(AVAILABLE));
+    }
+
+    public boolean canTransitionTo(SlotStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+}
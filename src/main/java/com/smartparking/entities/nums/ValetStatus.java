@@ -1,5 +1,10 @@
 package com.smartparking.entities.nums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum ValetStatus {
     REQUESTED,       // ← ADD THIS
     PENDING,
@@ -9,5 +14,23 @@ public enum ValetStatus {
     PARKED,
     RETURN_REQUESTED,
     COMPLETED,
-    CANCELLED
-}
\ No newline at end of file
+    CANCELLED;
+
+    // Allowed lifecycle moves — PENDING / IN_PROGRESS are legacy states kept for old rows
+    private static final Map<ValetStatus, Set<ValetStatus>> TRANSITIONS = new EnumMap<>(ValetStatus.class);
+    static {
+        TRANSITIONS.put(REQUESTED,        EnumSet.of(ACCEPTED, CANCELLED));
+        TRANSITIONS.put(PENDING,          EnumSet.of(ACCEPTED, CANCELLED));
+        TRANSITIONS.put(ACCEPTED,         EnumSet.of(PICKED_UP, CANCELLED));
+        TRANSITIONS.put(PICKED_UP,        EnumSet.of(PARKED, IN_PROGRESS));
+        TRANSITIONS.put(IN_PROGRESS,      EnumSet.of(PARKED));
+        TRANSITIONS.put(PARKED,           EnumSet.of(RETURN_REQUESTED));
+        TRANSITIONS.put(RETURN_REQUESTED, EnumSet.of(COMPLETED));
+        TRANSITIONS.put(COMPLETED,        EnumSet.noneOf(ValetStatus.class));
+        TRANSITIONS.put(CANCELLED,        EnumSet.noneOf(ValetStatus.class));
+    }
+
+    public boolean canTransitionTo(ValetStatus next) {
+        return TRANSITIONS.get(this).contains(next);
+    }
+}
@@ -16,7 +16,10 @@ import java.util.List;
 // and triggers LazyInitializationException in toString() if session is closed.
 @ToString(of = {"id", "name", "status"})
 @EqualsAndHashCode(of = "id")
-@Table(name = "parking_lots")
+// Composite index backs the bounding-box prefilter of the nearby-lot queries
+@Table(name = "parking_lots", indexes = {
+        @Index(name = "idx_parking_lots_status_lat_lng", columnList = "status, latitude, longitude")
+})
 public class ParkingLot {
 
     @Id
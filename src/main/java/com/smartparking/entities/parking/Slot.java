@@ -43,4 +43,9 @@ public class Slot {
     private ParkingLot parkingLot;
 
     private double hourlyRate;
+
+    // Optimistic lock — the CAS queries in SlotRepository bump it too
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
\ No newline at end of file
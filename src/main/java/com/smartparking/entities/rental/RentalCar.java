@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "rental_cars")
+// Composite index backs the bounding-box prefilter of the nearby-car queries
+@Table(name = "rental_cars", indexes = {
+        @Index(name = "idx_rental_cars_status_lat_lng", columnList = "status, pickup_latitude, pickup_longitude")
+})
 public class RentalCar {
 
     @Id
@@ -30,6 +30,7 @@ public class ValetFare {
     private double pickupDistanceKm;       // km from valet to user
     private double parkingDistanceKm;      // km from user to parking lot
     private double returnDistanceKm;       // km from lot back to user
+    private Double travelledDistanceKm;    // km driven per the GPS trail, capped for billing — null if no trail was recorded
 
     // ── Fare components ──────────────────────────────────────────
     private double baseFare;               // flat base fee (e.g. ₹50)
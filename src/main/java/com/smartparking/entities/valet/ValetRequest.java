@@ -72,6 +72,11 @@ public class ValetRequest {
     @Column(name = "image_url")
     private List<String> carImages;
 
+    // Optimistic lock — two valets accepting the same job can't both win
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     private LocalDateTime requestedAt;
     private LocalDateTime parkedAt;
     private LocalDateTime completedAt;
@@ -0,0 +1,47 @@
+package com.smartparking.entities.valet;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * The path a valet drove for one job, written ONCE when the job completes.
+ * trail is a TripTrail blob (delta + varint encoded); distanceKm is the
+ * travelled distance summed while recording, so billing never decodes it.
+ */
+@Entity
+@Table(name = "valet_trip_trails",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"valet_request_id"}))
+@Data
+public class ValetTripTrail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "valet_request_id", nullable = false)
+    private Long valetRequestId;
+
+    @Column(name = "distance_km", nullable = false)
+    private double distanceKm;
+
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+
+    // True if the trail hit the size cap — the path is cut short, distanceKm is still complete
+    @Column(nullable = false)
+    private boolean truncated;
+
+    @Lob
+    @Column(name = "trail", columnDefinition = "MEDIUMBLOB")
+    private byte[] trail;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,99 @@
+package com.smartparking.events;
+
+import com.smartparking.OtherServices.NotificationService;
+import com.smartparking.OtherServices.SlotWebSocketService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Booking side effects — slot broadcasts and notifications — run here, after
+ * the booking transaction commits, on the bounded SideEffectExecutor pool.
+ *
+ * The booking transaction now only holds its row locks for the essential
+ * writes. A booking that rolls back never publishes anything: AFTER_COMMIT
+ * listeners simply don't fire.
+ *
+ * NotificationService already swallows its own failures; broadcasts are
+ * guarded here so one bad send never skips the notifications.
+ */
+@Component
+public class BookingEventListener {
+
+    private final NotificationService  notificationService;
+    private final SlotWebSocketService slotWebSocketService;
+    private final SideEffectExecutor   sideEffectExecutor;
+
+    public BookingEventListener(NotificationService notificationService,
+                                SlotWebSocketService slotWebSocketService,
+                                SideEffectExecutor sideEffectExecutor) {
+        this.notificationService = notificationService;
+        this.slotWebSocketService = slotWebSocketService;
+        this.sideEffectExecutor = sideEffectExecutor;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBookingLifecycle(BookingLifecycleEvent event) {
+        sideEffectExecutor.execute("booking " + event.type() + " " + event.bookingCode(),
+                () -> handle(event));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onBulkBookingCreated(BulkBookingCreatedEvent event) {
+        sideEffectExecutor.execute("bulk booking for customer " + event.customerId(),
+                () -> handle(event));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Handlers — run on the side-effect pool
+    // ─────────────────────────────────────────────────────────────────────
+
+    private void handle(BookingLifecycleEvent event) {
+        if (event.slotUpdate() != null) {
+            try {
+                slotWebSocketService.broadcastSlotUpdate(event.slotUpdate());
+            } catch (Exception e) {
+                System.err.println("[BookingEvents] Slot broadcast failed for "
+                        + event.bookingCode() + ": " + e.getMessage());
+            }
+        }
+
+        switch (event.type()) {
+            case CREATED -> {
+                notificationService.notifyBookingConfirmed(
+                        event.customerId(), event.bookingCode(), event.lotName());
+                notificationService.notifyAdminNewBooking(
+                        event.lotAdminId(), event.bookingCode(), event.slotNumber());
+            }
+            case CHECKED_IN -> notificationService.notifyBookingCheckedIn(
+                    event.customerId(), event.lotName());
+            case COMPLETED -> {
+                notificationService.notifyBookingCompleted(
+                        event.customerId(), event.totalAmount());
+                notificationService.notifyAdminCheckout(
+                        event.lotAdminId(), event.bookingCode(), event.totalAmount());
+            }
+            case CANCELLED -> {
+                notificationService.notifyBookingCancelled(
+                        event.customerId(), event.bookingCode());
+                notificationService.notifyAdminBookingCancelled(
+                        event.lotAdminId(), event.bookingCode(), event.slotNumber());
+            }
+        }
+    }
+
+    private void handle(BulkBookingCreatedEvent event) {
+        for (BulkBookingCreatedEvent.LotSummary lot : event.lots()) {
+            if (!lot.slotUpdates().isEmpty()) {
+                try {
+                    slotWebSocketService.broadcastSlotUpdates(lot.lotId(), lot.slotUpdates());
+                } catch (Exception e) {
+                    System.err.println("[BookingEvents] Batch broadcast failed for lot "
+                            + lot.lotId() + ": " + e.getMessage());
+                }
+            }
+            notificationService.notifyAdminBulkBooking(lot.lotAdminId(), lot.bookingCount(), lot.lotName());
+        }
+        notificationService.notifyBulkBookingConfirmed(event.customerId(), event.bookingCount(), event.lotNames());
+    }
+}
@@ -0,0 +1,44 @@
+package com.smartparking.events;
+
+import com.smartparking.entities.Booking;
+import com.smartparking.entities.parking.Slot;
+import com.smartparking.websocket.SlotStatusMessage;
+
+/**
+ * Published inside the booking transaction, handled after it commits.
+ *
+ * Holds plain values only — the listener runs on another thread after the
+ * persistence context is gone, so it must never touch lazy entities.
+ *
+ * slotUpdate is null when the booking step did not change a slot
+ * (e.g. an advance reservation being created).
+ */
+public record BookingLifecycleEvent(
+        Type type,
+        Long bookingId,
+        String bookingCode,
+        Long customerId,
+        Long lotAdminId,
+        String lotName,
+        String slotNumber,
+        Double totalAmount,
+        SlotStatusMessage slotUpdate
+) {
+
+    public enum Type { CREATED, CHECKED_IN, COMPLETED, CANCELLED }
+
+    /** Snapshots the booking; call while the transaction is still open. */
+    public static BookingLifecycleEvent of(Type type, Booking booking, Slot changedSlot) {
+        return new BookingLifecycleEvent(
+                type,
+                booking.getId(),
+                booking.getBookingCode(),
+                booking.getCustomer().getId(),
+                booking.getParkingLot().getParkingLotAdmin().getId(),
+                booking.getParkingLot().getName(),
+                booking.getSlot().getSlotNumber(),
+                booking.getTotalAmount(),
+                changedSlot != null ? SlotStatusMessage.of(changedSlot) : null
+        );
+    }
+}
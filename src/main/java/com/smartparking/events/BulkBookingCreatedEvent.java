@@ -0,0 +1,22 @@
+package com.smartparking.events;
+
+import com.smartparking.websocket.SlotStatusMessage;
+
+import java.util.List;
+
+/**
+ * Group booking committed — one aggregated customer notification, and per lot
+ * one admin notification plus one batched slot broadcast.
+ *
+ * slotUpdates is empty for advance reservations (no slot changed yet).
+ */
+public record BulkBookingCreatedEvent(
+        Long customerId,
+        int bookingCount,
+        String lotNames,
+        List<LotSummary> lots
+) {
+
+    public record LotSummary(Long lotId, Long lotAdminId, String lotName, int bookingCount,
+                             List<SlotStatusMessage> slotUpdates) {}
+}
@@ -0,0 +1,66 @@
+package com.smartparking.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool for work that runs after a transaction commits — notifications
+ * and WebSocket broadcasts.
+ *
+ *  - Bounded queue: a burst of bookings can't grow memory without limit.
+ *  - When the queue is full the committing thread runs the task itself
+ *    (CallerRunsPolicy) — slower responses under overload, nothing dropped.
+ *  - Pool size, queue depth and task timings are exported through Micrometer
+ *    as executor.* metrics tagged name=side-effects (see /actuator/metrics).
+ *
+ * Deliberately NOT an Executor bean: one of those would make Spring Boot skip
+ * its own applicationTaskExecutor.
+ */
+@Component
+public class SideEffectExecutor {
+
+    private final ExecutorService executor;
+
+    public SideEffectExecutor(MeterRegistry meterRegistry,
+                              @Value("${smartparking.side-effects.core-threads:4}") int coreThreads,
+                              @Value("${smartparking.side-effects.max-threads:8}") int maxThreads,
+                              @Value("${smartparking.side-effects.queue-capacity:1000}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                coreThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "side-effects-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "side-effects");
+    }
+
+    /** Runs the task on the pool; failures are logged, never propagated. */
+    public void execute(String description, Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println("[SideEffects] " + description + " failed: " + e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -2,6 +2,7 @@ package com.smartparking.exceptions;
 
 import com.smartparking.dtos.response.ErrorResponseDTO;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -58,6 +59,25 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
+    // 3a. Handles 409 Conflict — concurrent update lost the optimistic-lock race even after retries,
+    // or a status change that the entity's transition table does not allow
+    @ExceptionHandler({OptimisticLockingFailureException.class, InvalidStateTransitionException.class})
+    public ResponseEntity<ErrorResponseDTO> handleConflict(
+            RuntimeException ex, HttpServletRequest request) {
+
+        String message = ex instanceof OptimisticLockingFailureException
+                ? "This record was changed by another request. Reload and try again."
+                : ex.getMessage();
+        ErrorResponseDTO errorResponse = new ErrorResponseDTO(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                message,
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     // 3b. Handles 400 Bad Request — invalid enum values (e.g. bad slotType), promo rules
     // M-06 FIX: SlotType.valueOf() throws IllegalArgumentException for unknown slot types.
     // Without this handler it falls through to the 500 fallback — confusing for callers.
@@ -75,6 +95,21 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    // 3c. Handles 422 Unprocessable Content — an Idempotency-Key reused with a different body
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponseDTO> handleIdempotencyKeyReuseException(
+            IdempotencyKeyReuseException ex, HttpServletRequest request) {
+
+        ErrorResponseDTO errorResponse = new ErrorResponseDTO(
+                LocalDateTime.now(),
+                HttpStatus.UNPROCESSABLE_CONTENT.value(),
+                "Unprocessable Content",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.UNPROCESSABLE_CONTENT);
+    }
+
     // 5. Handles 401 Unauthorized — wrong email or password at login
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ErrorResponseDTO> handleBadCredentialsException(
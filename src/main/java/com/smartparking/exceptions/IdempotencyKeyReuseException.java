@@ -0,0 +1,8 @@
+package com.smartparking.exceptions;
+
+// Thrown when an Idempotency-Key comes back with a different request body — mapped to 422
+public class IdempotencyKeyReuseException extends RuntimeException {
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.smartparking.exceptions;
+
+// Thrown when a status change is not in the entity's transition table — mapped to 409 Conflict
+public class InvalidStateTransitionException extends RuntimeException {
+    public InvalidStateTransitionException(String entity, Enum<?> from, Enum<?> to) {
+        super(entity + " cannot move from " + from + " to " + to + ".");
+    }
+}
@@ -0,0 +1,50 @@
+package com.smartparking.repositories;
+
+import com.smartparking.entities.Booking;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC batch insert for group bookings.
+ *
+ * Booking ids are IDENTITY, which turns off Hibernate's insert batching — saveAll()
+ * would still send one INSERT per row. This writes all rows in batches of
+ * BATCH_SIZE on the current transaction's connection. Add
+ * rewriteBatchedStatements=true to the MySQL URL to turn each batch into one
+ * multi-row INSERT.
+ *
+ * Callers read generated ids back with BookingRepository.findIdsByBookingCodes.
+ */
+@Repository
+public class BookingBatchRepository {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO bookings (booking_code, customer_id, slot_id, parking_lot_id, " +
+            "entry_time, exit_time, total_amount, status, advance_reservation, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<Booking> bookings) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, bookings, BATCH_SIZE, (ps, b) -> {
+            ps.setString(1, b.getBookingCode());
+            ps.setLong(2, b.getCustomer().getId());
+            ps.setLong(3, b.getSlot().getId());
+            ps.setLong(4, b.getParkingLot().getId());
+            ps.setTimestamp(5, Timestamp.valueOf(b.getEntryTime()));
+            ps.setTimestamp(6, Timestamp.valueOf(b.getExitTime()));
+            ps.setDouble(7, b.getTotalAmount());
+            ps.setString(8, b.getStatus().name());
+            ps.setBoolean(9, b.isAdvanceReservation());
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.smartparking.repositories;
+
+import com.smartparking.entities.BookingCodeWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface BookingCodeWatermarkRepository extends JpaRepository<BookingCodeWatermark, Integer> {
+
+    // Own transaction: the mark must stick even if the booking that triggered it rolls back
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO booking_code_watermarks (node_id, reserved_until) VALUES (:nodeId, :until) "
+            + "ON DUPLICATE KEY UPDATE reserved_until = GREATEST(reserved_until, :until)", nativeQuery = true)
+    int raiseTo(@Param("nodeId") int nodeId, @Param("until") long until);
+}
@@ -1,29 +1,109 @@
 package com.smartparking.repositories;
 
+import com.smartparking.dtos.response.BookingResponseDTO;
 import com.smartparking.entities.Booking;
 import com.smartparking.entities.nums.BookingStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     // ── EXISTING (unchanged — kept your exact query style) ────────────────
 
-    List<Booking> findByCustomerIdOrderByEntryTimeDesc(Long customerId);
-
     Optional<Booking> findByBookingCode(String bookingCode);
 
-    // M-03 FIX: Used in uniqueness retry loop during booking creation
-    boolean existsByBookingCode(String bookingCode);
-
-    List<Booking> findByParkingLotIdOrderByEntryTimeDesc(Long parkingLotId);
+    // ── Booking list endpoints — DTO projections, one statement each ──────
+    // Joins customer, lot and slot in the same SELECT instead of lazy-loading
+    // three associations per row in mapToResponseDTO.
+
+    String BOOKING_DTO_SELECT =
+            "SELECT new com.smartparking.dtos.response.BookingResponseDTO(" +
+            "b.id, b.bookingCode, c.name, l.id, l.name, s.slotNumber, " +
+            "b.entryTime, b.exitTime, b.totalAmount, b.status) " +
+            "FROM Booking b JOIN b.customer c JOIN b.parkingLot l JOIN b.slot s ";
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE c.id = :customerId ORDER BY b.entryTime DESC, b.id DESC")
+    List<BookingResponseDTO> findDtosByCustomerId(@Param("customerId") Long customerId);
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE l.id = :lotId ORDER BY b.entryTime DESC, b.id DESC")
+    List<BookingResponseDTO> findDtosByParkingLotId(@Param("lotId") Long lotId);
+
+    // ── Keyset pages on (entryTime DESC, id DESC) — the Pageable only carries the page size ──
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE c.id = :customerId ORDER BY b.entryTime DESC, b.id DESC")
+    List<BookingResponseDTO> findDtoPageByCustomerId(@Param("customerId") Long customerId, Pageable page);
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE c.id = :customerId AND (b.entryTime < :entryTime " +
+            "OR (b.entryTime = :entryTime AND b.id < :id)) " +
+            "ORDER BY b.entryTime DESC, b.id DESC")
+    List<BookingResponseDTO> findDtoPageByCustomerIdAfter(@Param("customerId") Long          customerId,
+                                                          @Param("entryTime")  LocalDateTime entryTime,
+                                                          @Param("id")         Long          id,
+                                                          Pageable page);
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE l.id = :lotId ORDER BY b.entryTime DESC, b.id DESC")
+    List<BookingResponseDTO> findDtoPageByParkingLotId(@Param("lotId") Long lotId, Pageable page);
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE l.id = :lotId AND (b.entryTime < :entryTime " +
+            "OR (b.entryTime = :entryTime AND b.id < :id)) " +
+            "ORDER BY b.entryTime DESC, b.id DESC")
+    List<BookingResponseDTO> findDtoPageByParkingLotIdAfter(@Param("lotId")     Long          lotId,
+                                                            @Param("entryTime") LocalDateTime entryTime,
+                                                            @Param("id")        Long          id,
+                                                            Pageable page);
+
+    // ── Streaming (NDJSON export) — must be consumed inside a read-only transaction ──
+    // MySQL Connector/J only streams row by row with fetch size Integer.MIN_VALUE;
+    // any other value buffers the whole result set in memory.
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE c.id = :customerId ORDER BY b.entryTime DESC, b.id DESC")
+    Stream<BookingResponseDTO> streamDtosByCustomerId(@Param("customerId") Long customerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE l.id = :lotId ORDER BY b.entryTime DESC, b.id DESC")
+    Stream<BookingResponseDTO> streamDtosByParkingLotId(@Param("lotId") Long lotId);
+
+    // Latest 10 across every lot the admin owns — replaces a lot lookup + IN query
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE l.parkingLotAdmin.id = :adminId ORDER BY b.entryTime DESC, b.id DESC LIMIT 10")
+    List<BookingResponseDTO> findLatestDtosByLotAdminId(@Param("adminId") Long adminId);
+
+    // Returns [id, bookingCode] — reads back generated ids after a JDBC batch insert
+    @Query("SELECT b.id, b.bookingCode FROM Booking b WHERE b.bookingCode IN :codes")
+    List<Object[]> findIdsByBookingCodes(@Param("codes") List<String> codes);
+
+    // Returns [slotId, bookingCode, entryTime, exitTime] — loads SlotReservationCalendar at startup
+    @Query("SELECT b.slot.id, b.bookingCode, b.entryTime, b.exitTime FROM Booking b " +
+            "WHERE b.status IN :statuses AND b.exitTime > :now")
+    List<Object[]> findOpenReservationWindows(@Param("statuses") List<BookingStatus> statuses,
+                                              @Param("now")      LocalDateTime now);
+
+    // Another booking occupying the slot — checked in, or an immediate booking that claimed it at creation
+    @Query("SELECT COUNT(b) > 0 FROM Booking b WHERE b.slot.id = :slotId AND b.id <> :bookingId " +
+            "AND (b.status = com.smartparking.entities.nums.BookingStatus.ACTIVE " +
+            "OR (b.status = com.smartparking.entities.nums.BookingStatus.PENDING AND b.advanceReservation = false))")
+    boolean isSlotHeldByAnother(@Param("slotId") Long slotId, @Param("bookingId") Long bookingId);
 
     @Query("SELECT COALESCE(SUM(b.totalAmount), 0.0) FROM Booking b " +
             "WHERE b.parkingLot.id = :lotId AND b.status = :status " +
@@ -115,6 +195,4 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "WHERE b.parkingLot.id IN :lotIds AND b.status = :status")
     Double calculateTotalRevenueByLotIds(@Param("lotIds")  List<Long> lotIds,
                                          @Param("status") BookingStatus status);
-
-    List<Booking> findTop10ByParkingLotIdInOrderByEntryTimeDesc(List<Long> lotIds);
 }
\ No newline at end of file
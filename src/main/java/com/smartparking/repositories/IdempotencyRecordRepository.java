@@ -0,0 +1,52 @@
+package com.smartparking.repositories;
+
+import com.smartparking.entities.IdempotencyRecord;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    // Locking read — sees the latest committed row, not the transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<IdempotencyRecord> findByScopedKey(String scopedKey);
+
+    // Claims the key inside the caller's transaction. 0 rows → someone already holds it;
+    // if their transaction is still open, this blocks on the unique index until it ends.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (scoped_key, request_hash, status_code, created_at, expires_at) "
+            + "VALUES (:scopedKey, :requestHash, 0, NOW(), :expiresAt)", nativeQuery = true)
+    int claim(@Param("scopedKey") String scopedKey,
+              @Param("requestHash") String requestHash,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody "
+            + "WHERE r.scopedKey = :scopedKey")
+    int complete(@Param("scopedKey") String scopedKey,
+                 @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopedKey = :scopedKey")
+    int release(@Param("scopedKey") String scopedKey);
+
+    // An expired key left over from before the last purge must not block a new claim
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopedKey = :scopedKey AND r.expiresAt <= :now")
+    int deleteIfExpired(@Param("scopedKey") String scopedKey, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -2,6 +2,7 @@ package com.smartparking.repositories;
 
 import com.smartparking.entities.nums.ParkingLotStatus;
 import com.smartparking.entities.parking.ParkingLot;
+import com.smartparking.utils.GeoUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,21 +16,90 @@ public interface ParkingLotRepository extends JpaRepository<ParkingLot, Long> {
 
     List<ParkingLot> findByStatus(ParkingLotStatus status);
 
+    // [id, latitude, longitude] of located lots — feeds ParkingLotSpatialIndex without loading entities
+    @Query("SELECT p.id, p.latitude, p.longitude FROM ParkingLot p " +
+            "WHERE p.status = :status AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL")
+    List<Object[]> findLotPointsByStatus(@Param("status") ParkingLotStatus status);
+
     // ✅ FIXED: was findByAdminId — renamed to match the new field name
     List<ParkingLot> findByParkingLotAdminId(Long parkingLotAdminId);
 
     // ✅ FIXED: was findByIdAndAdminId — renamed to match the new field name
     Optional<ParkingLot> findByIdAndParkingLotAdminId(Long lotId, Long parkingLotAdminId);
 
-    @Query(value = "SELECT * FROM parking_lots p ORDER BY (6371 * acos(cos(radians(:lat)) * cos(radians(p.latitude)) * cos(radians(p.longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(p.latitude)))) ASC LIMIT 5", nativeQuery = true)
-    List<ParkingLot> findNearbyParkingLots(@Param("lat") double lat, @Param("lng") double lng);
+    // ─────────────────────────────────────────────────────────────────────
+    //  Nearby lots — bounding-box prefilter, exact distance only on survivors
+    //
+    //  The old queries ran acos(...) on EVERY row inside ORDER BY: a full scan
+    //  and sort per call. Now latitude/longitude BETWEEN uses the composite
+    //  (status, latitude, longitude) index, the Haversine runs on the few rows
+    //  inside the box, and rows in the box corners beyond the radius are dropped
+    //  so the ranking is exact. The search widens ring by ring if the box is too
+    //  sparse; only an empty neighbourhood falls back to the full scan.
+    // ─────────────────────────────────────────────────────────────────────
+
+    double[] NEARBY_SEARCH_RADII_KM = {5, 25, 100};
+
+    // LEAST(1.0, ...) keeps acos in range when rounding pushes the argument past 1
+    String LOT_DISTANCE_KM = "(6371 * acos(LEAST(1.0, cos(radians(:lat)) * cos(radians(p.latitude)) * " +
+            "cos(radians(p.longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(p.latitude)))))";
+
+    String IN_BOX = "p.latitude BETWEEN :minLat AND :maxLat AND p.longitude BETWEEN :minLng AND :maxLng ";
+
+    default List<ParkingLot> findNearbyParkingLots(double lat, double lng) {
+        List<ParkingLot> lots = List.of();
+        for (double radiusKm : NEARBY_SEARCH_RADII_KM) {
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+            lots = findLotsInRadius(lat, lng, radiusKm,
+                    box.minLat(), box.maxLat(), box.minLon(), box.maxLon(), 5);
+            if (lots.size() >= 5) {
+                return lots;
+            }
+        }
+        // Fewer than asked within the widest ring is still the answer — only an empty one scans every row
+        return lots.isEmpty() ? findNearbyParkingLotsUnbounded(lat, lng) : lots;
+    }
 
-    @Query(value = "SELECT * FROM parking_lots pl WHERE pl.status = 'ACTIVE' " +
-            "ORDER BY (6371 * acos(cos(radians(:latitude)) * cos(radians(pl.latitude)) * " +
-            "cos(radians(pl.longitude) - radians(:longitude)) + " +
-            "sin(radians(:latitude)) * sin(radians(pl.latitude)))) ASC LIMIT :limit",
+    default List<ParkingLot> findNearbyActiveLots(double latitude, double longitude, int limit) {
+        List<ParkingLot> lots = List.of();
+        for (double radiusKm : NEARBY_SEARCH_RADII_KM) {
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radiusKm);
+            lots = findActiveLotsInRadius(latitude, longitude, radiusKm,
+                    box.minLat(), box.maxLat(), box.minLon(), box.maxLon(), limit);
+            if (lots.size() >= limit) {
+                return lots;
+            }
+        }
+        return lots.isEmpty() ? findNearbyActiveLotsUnbounded(latitude, longitude, limit) : lots;
+    }
+
+    @Query(value = "SELECT * FROM parking_lots p WHERE " + IN_BOX +
+            "AND " + LOT_DISTANCE_KM + " <= :radiusKm " +
+            "ORDER BY " + LOT_DISTANCE_KM + " ASC LIMIT :limit",
+            nativeQuery = true)
+    List<ParkingLot> findLotsInRadius(@Param("lat") double lat, @Param("lng") double lng,
+                                      @Param("radiusKm") double radiusKm,
+                                      @Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                                      @Param("minLng") double minLng, @Param("maxLng") double maxLng,
+                                      @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM parking_lots p WHERE p.status = 'ACTIVE' AND " + IN_BOX +
+            "AND " + LOT_DISTANCE_KM + " <= :radiusKm " +
+            "ORDER BY " + LOT_DISTANCE_KM + " ASC LIMIT :limit",
             nativeQuery = true)
-    List<ParkingLot> findNearbyActiveLots(@Param("latitude") double latitude,
-                                          @Param("longitude") double longitude,
-                                          @Param("limit") int limit);
+    List<ParkingLot> findActiveLotsInRadius(@Param("lat") double lat, @Param("lng") double lng,
+                                            @Param("radiusKm") double radiusKm,
+                                            @Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                                            @Param("minLng") double minLng, @Param("maxLng") double maxLng,
+                                            @Param("limit") int limit);
+
+    // Full-scan fallbacks — only reached when nothing is within the widest ring
+    @Query(value = "SELECT * FROM parking_lots p WHERE p.latitude IS NOT NULL " +
+            "ORDER BY " + LOT_DISTANCE_KM + " ASC LIMIT 5", nativeQuery = true)
+    List<ParkingLot> findNearbyParkingLotsUnbounded(@Param("lat") double lat, @Param("lng") double lng);
+
+    @Query(value = "SELECT * FROM parking_lots p WHERE p.status = 'ACTIVE' AND p.latitude IS NOT NULL " +
+            "ORDER BY " + LOT_DISTANCE_KM + " ASC LIMIT :limit", nativeQuery = true)
+    List<ParkingLot> findNearbyActiveLotsUnbounded(@Param("lat") double lat, @Param("lng") double lng,
+                                                   @Param("limit") int limit);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.smartparking.repositories;
 import com.smartparking.entities.rental.RentalCar;
 import com.smartparking.entities.nums.RentalCarStatus;
 import com.smartparking.entities.nums.VehicleType;
+import com.smartparking.utils.GeoUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,25 +16,85 @@ public interface RentalCarRepository extends JpaRepository<RentalCar, Long> {
     List<RentalCar> findByRentalCompanyId(Long companyId);
     List<RentalCar> findByStatus(RentalCarStatus status);
 
-    // Nearby available cars — no type filter
-    @Query(value = "SELECT * FROM rental_cars r WHERE r.status = 'AVAILABLE' " +
-            "ORDER BY (6371 * acos(cos(radians(:lat)) * cos(radians(r.pickup_latitude)) * " +
+    // [id, status, vehicleType, pickupLatitude, pickupLongitude] — feeds RentalCarSpatialIndex without loading entities
+    @Query("SELECT r.id, r.status, r.vehicleType, r.pickupLatitude, r.pickupLongitude FROM RentalCar r " +
+            "WHERE r.status IS NOT NULL AND r.vehicleType IS NOT NULL AND r.pickupLatitude IS NOT NULL AND r.pickupLongitude IS NOT NULL")
+    List<Object[]> findCarPoints();
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Nearby available cars — same bounding-box scheme as ParkingLotRepository:
+    //  the (status, pickup_latitude, pickup_longitude) index narrows the rows,
+    //  exact distance ranks only the survivors, rings widen if the box is sparse.
+    // ─────────────────────────────────────────────────────────────────────
+
+    String CAR_DISTANCE_KM = "(6371 * acos(LEAST(1.0, cos(radians(:lat)) * cos(radians(r.pickup_latitude)) * " +
             "cos(radians(r.pickup_longitude) - radians(:lng)) + " +
-            "sin(radians(:lat)) * sin(radians(r.pickup_latitude)))) ASC LIMIT :limit",
-            nativeQuery = true)
-    List<RentalCar> findNearbyAvailableCars(@Param("lat") double lat,
-                                            @Param("lng") double lng,
-                                            @Param("limit") int limit);
+            "sin(radians(:lat)) * sin(radians(r.pickup_latitude)))))";
+
+    String CAR_IN_BOX = "r.pickup_latitude BETWEEN :minLat AND :maxLat " +
+            "AND r.pickup_longitude BETWEEN :minLng AND :maxLng ";
+
+    // Nearby available cars — no type filter
+    default List<RentalCar> findNearbyAvailableCars(double lat, double lng, int limit) {
+        List<RentalCar> cars = List.of();
+        for (double radiusKm : ParkingLotRepository.NEARBY_SEARCH_RADII_KM) {
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+            cars = findAvailableCarsInRadius(lat, lng, radiusKm,
+                    box.minLat(), box.maxLat(), box.minLon(), box.maxLon(), limit);
+            if (cars.size() >= limit) {
+                return cars;
+            }
+        }
+        // Fewer than asked within the widest ring is still the answer — only an empty one scans every row
+        return cars.isEmpty() ? findNearbyAvailableCarsUnbounded(lat, lng, limit) : cars;
+    }
 
     // Nearby available cars — filtered by vehicle type
+    default List<RentalCar> findNearbyAvailableCarsByType(double lat, double lng, String vehicleType, int limit) {
+        List<RentalCar> cars = List.of();
+        for (double radiusKm : ParkingLotRepository.NEARBY_SEARCH_RADII_KM) {
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lng, radiusKm);
+            cars = findAvailableCarsByTypeInRadius(lat, lng, radiusKm,
+                    box.minLat(), box.maxLat(), box.minLon(), box.maxLon(), vehicleType, limit);
+            if (cars.size() >= limit) {
+                return cars;
+            }
+        }
+        return cars.isEmpty() ? findNearbyAvailableCarsByTypeUnbounded(lat, lng, vehicleType, limit) : cars;
+    }
+
+    @Query(value = "SELECT * FROM rental_cars r WHERE r.status = 'AVAILABLE' AND " + CAR_IN_BOX +
+            "AND " + CAR_DISTANCE_KM + " <= :radiusKm " +
+            "ORDER BY " + CAR_DISTANCE_KM + " ASC LIMIT :limit",
+            nativeQuery = true)
+    List<RentalCar> findAvailableCarsInRadius(@Param("lat") double lat, @Param("lng") double lng,
+                                              @Param("radiusKm") double radiusKm,
+                                              @Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                                              @Param("minLng") double minLng, @Param("maxLng") double maxLng,
+                                              @Param("limit") int limit);
+
     @Query(value = "SELECT * FROM rental_cars r WHERE r.status = 'AVAILABLE' " +
-            "AND r.vehicle_type = :vehicleType " +
-            "ORDER BY (6371 * acos(cos(radians(:lat)) * cos(radians(r.pickup_latitude)) * " +
-            "cos(radians(r.pickup_longitude) - radians(:lng)) + " +
-            "sin(radians(:lat)) * sin(radians(r.pickup_latitude)))) ASC LIMIT :limit",
+            "AND r.vehicle_type = :vehicleType AND " + CAR_IN_BOX +
+            "AND " + CAR_DISTANCE_KM + " <= :radiusKm " +
+            "ORDER BY " + CAR_DISTANCE_KM + " ASC LIMIT :limit",
             nativeQuery = true)
-    List<RentalCar> findNearbyAvailableCarsByType(@Param("lat") double lat,
-                                                  @Param("lng") double lng,
-                                                  @Param("vehicleType") String vehicleType,
-                                                  @Param("limit") int limit);
+    List<RentalCar> findAvailableCarsByTypeInRadius(@Param("lat") double lat, @Param("lng") double lng,
+                                                    @Param("radiusKm") double radiusKm,
+                                                    @Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                                                    @Param("minLng") double minLng, @Param("maxLng") double maxLng,
+                                                    @Param("vehicleType") String vehicleType,
+                                                    @Param("limit") int limit);
+
+    // Full-scan fallbacks — only reached when nothing is within the widest ring
+    @Query(value = "SELECT * FROM rental_cars r WHERE r.status = 'AVAILABLE' AND r.pickup_latitude IS NOT NULL " +
+            "ORDER BY " + CAR_DISTANCE_KM + " ASC LIMIT :limit", nativeQuery = true)
+    List<RentalCar> findNearbyAvailableCarsUnbounded(@Param("lat") double lat, @Param("lng") double lng,
+                                                     @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM rental_cars r WHERE r.status = 'AVAILABLE' AND r.vehicle_type = :vehicleType " +
+            "AND r.pickup_latitude IS NOT NULL " +
+            "ORDER BY " + CAR_DISTANCE_KM + " ASC LIMIT :limit", nativeQuery = true)
+    List<RentalCar> findNearbyAvailableCarsByTypeUnbounded(@Param("lat") double lat, @Param("lng") double lng,
+                                                           @Param("vehicleType") String vehicleType,
+                                                           @Param("limit") int limit);
 }
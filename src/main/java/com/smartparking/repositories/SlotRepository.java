@@ -4,8 +4,12 @@ import com.smartparking.entities.parking.Slot;
 import com.smartparking.entities.nums.SlotStatus;
 import com.smartparking.entities.nums.SlotType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +35,50 @@ public interface SlotRepository extends JpaRepository<Slot, Long> {
     Long countByStatus(SlotStatus status);
 
     long countByParkingLotIdAndSlotType(Long parkingLotId, com.smartparking.entities.nums.SlotType slotType);
+
+    // Returns the ids among :lotIds that have at least one slot in :status — one query for a whole candidate list
+    @Query("SELECT DISTINCT s.parkingLot.id FROM Slot s WHERE s.parkingLot.id IN :lotIds AND s.status = :status")
+    List<Long> findLotIdsWithStatus(@Param("lotIds") Collection<Long> lotIds, @Param("status") SlotStatus status);
+
+    // Returns [lotId, count] of slots in :status per lot — used by LotClusterIndex
+    @Query("SELECT s.parkingLot.id, COUNT(s) FROM Slot s WHERE s.status = :status GROUP BY s.parkingLot.id")
+    List<Object[]> countByLotWithStatus(@Param("status") SlotStatus status);
+
+    // Returns [slotId, lotId, slotType] — used by SlotAvailabilityIndex to rebuild its buckets
+    @Query("SELECT s.id, s.parkingLot.id, s.slotType FROM Slot s WHERE s.status = :status")
+    List<Object[]> findSlotKeysByStatus(@Param("status") SlotStatus status);
+
+    // Compare-and-set on status in ONE statement — returns 1 if this caller won the slot, 0 if someone else did
+    @Modifying
+    @Query("UPDATE Slot s SET s.status = :next, s.version = s.version + 1 WHERE s.id = :id AND s.status = :expected")
+    int compareAndSetStatus(@Param("id")       Long       id,
+                            @Param("expected") SlotStatus expected,
+                            @Param("next")     SlotStatus next);
+
+    // Set-based version of compareAndSetStatus — one statement for a whole group booking
+    @Modifying
+    @Query("UPDATE Slot s SET s.status = :next, s.version = s.version + 1 " +
+            "WHERE s.id IN :ids AND s.status = :expected")
+    int compareAndSetStatusAll(@Param("ids")      List<Long> ids,
+                               @Param("expected") SlotStatus expected,
+                               @Param("next")     SlotStatus next);
+
+    // SKIP LOCKED candidate selection — concurrent claimers never wait on, or pick, the same rows.
+    // The returned rows stay locked until the caller's transaction ends. Pass the last id seen
+    // (0 for the first page) to get the next page — ids ascend, so pages never overlap.
+    @Query(value = "SELECT s.id FROM slots s WHERE s.parking_lot_id = :lotId " +
+            "AND s.status = 'AVAILABLE' AND s.slot_type = :slotType AND s.id > :afterId " +
+            "ORDER BY s.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockAvailableSlotIdsAfter(@Param("lotId")    Long   lotId,
+                                         @Param("slotType") String slotType,
+                                         @Param("afterId")  long   afterId,
+                                         @Param("limit")    int    limit);
+
+    // Returns [slotId, status] for every slot that can take a future reservation (everything but MAINTENANCE)
+    @Query("SELECT s.id, s.status FROM Slot s WHERE s.parkingLot.id = :lotId " +
+            "AND s.slotType = :slotType AND s.status <> com.smartparking.entities.nums.SlotStatus.MAINTENANCE " +
+            "ORDER BY s.id")
+    List<Object[]> findReservableSlotKeys(@Param("lotId")    Long     lotId,
+                                          @Param("slotType") SlotType slotType);
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.smartparking.repositories;
+
+import com.smartparking.OtherServices.ValetLocationStore.LiveLocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC batch write of coalesced valet locations — used by ValetLocationStore's
+ * write-behind flush. One batch per flush instead of one UPDATE per GPS ping.
+ */
+@Repository
+public class ValetLocationBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_SQL =
+            "UPDATE valets SET current_latitude = ?, current_longitude = ?, is_available_now = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ValetLocationBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void updateAll(List<LiveLocation> locations) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, locations, BATCH_SIZE, (ps, l) -> {
+            ps.setDouble(1, l.latitude());
+            ps.setDouble(2, l.longitude());
+            ps.setBoolean(3, l.available());
+            ps.setLong(4, l.valetId());
+        });
+    }
+}
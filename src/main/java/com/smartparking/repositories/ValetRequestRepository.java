@@ -2,7 +2,10 @@ package com.smartparking.repositories;
 
 import com.smartparking.entities.nums.ValetStatus;
 import com.smartparking.entities.valet.ValetRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -54,4 +57,21 @@ public interface ValetRequestRepository extends JpaRepository<ValetRequest, Long
     long countByParkingLotIdInAndStatusAndCompletedAtBetween(
             List<Long> lotIds, ValetStatus status,
             LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+
+    // ── ValetTrackingService: rebuild live jobs at startup ────────────────
+    // [requestId, valetId, status, pickupLatitude, pickupLongitude]
+    @Query("SELECT r.id, r.valet.id, r.status, r.pickupLatitude, r.pickupLongitude FROM ValetRequest r " +
+            "WHERE r.valet IS NOT NULL AND r.status IN :statuses")
+    List<Object[]> findTrackedJobs(@Param("statuses") List<ValetStatus> statuses);
+
+    // ── ValetDispatcher: open jobs for one tick, oldest first ─────────────
+    // [requestId, pickupLatitude, pickupLongitude, customerName]
+    @Query("SELECT r.id, r.pickupLatitude, r.pickupLongitude, r.customerName FROM ValetRequest r " +
+            "WHERE r.status = :status ORDER BY r.requestedAt")
+    List<Object[]> findOpenJobs(@Param("status") ValetStatus status, Pageable page);
+
+    // ── StompAuthInterceptor: who may watch a job's tracking topic ────────
+    // [customerId, valetId or null]
+    @Query("SELECT r.customer.id, v.id FROM ValetRequest r LEFT JOIN r.valet v WHERE r.id = :requestId")
+    List<Object[]> findParticipants(@Param("requestId") Long requestId);
+}
@@ -0,0 +1,17 @@
+package com.smartparking.repositories;
+
+import com.smartparking.entities.valet.ValetTripTrail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ValetTripTrailRepository extends JpaRepository<ValetTripTrail, Long> {
+
+    Optional<ValetTripTrail> findByValetRequestId(Long valetRequestId);
+
+    // Billing only needs the number — skip loading the blob
+    @Query("SELECT t.distanceKm FROM ValetTripTrail t WHERE t.valetRequestId = :requestId")
+    Optional<Double> findDistanceKmByValetRequestId(@Param("requestId") Long requestId);
+}
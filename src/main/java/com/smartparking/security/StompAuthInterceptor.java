@@ -0,0 +1,146 @@
+package com.smartparking.security;
+
+import com.smartparking.repositories.UserRepository;
+import com.smartparking.repositories.ValetRequestRepository;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates STOMP connections — the WebSocket counterpart of JwtAuthFilter.
+ *
+ * The token is checked ONCE, on CONNECT (native header "Authorization: Bearer ..."),
+ * and the user is pinned to the session. Frames after that cost nothing.
+ *
+ * Rules:
+ *  - No token → anonymous connection; it may still subscribe to public topics.
+ *  - A bad, expired or logged-out token → the CONNECT is rejected.
+ *  - Clients may only SEND under /app. Topics are written by the server alone —
+ *    otherwise any connection could publish forged positions, offers or
+ *    retractions straight to the broker.
+ *  - SEND to a destination listed in SEND_ROLES needs a connection with that role.
+ *  - SUBSCRIBE to a job's tracking topic needs the job's customer or its
+ *    assigned valet; a valet's offer topic needs that valet; the job board
+ *    topics under /topic/valet-jobs need any VALET.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    // Destination → role required to SEND to it
+    private static final Map<String, String> SEND_ROLES = Map.of(
+            "/app/valet/location", "VALET");
+
+    // Must match WebSocketConfig.setApplicationDestinationPrefixes
+    private static final String APP_PREFIX = "/app/";
+
+    private static final Pattern TRACKING_TOPIC = Pattern.compile("^/topic/valet-request/(\\d+)/tracking$");
+    private static final Pattern OFFERS_TOPIC   = Pattern.compile("^/topic/valet/(\\d+)/offers$");
+    private static final String  JOB_BOARD_TOPIC = "/topic/valet-jobs";
+
+    private final JwtUtil jwtUtil;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final UserRepository userRepository;
+    private final ValetRequestRepository valetRequestRepository;
+
+    public StompAuthInterceptor(JwtUtil jwtUtil,
+                                TokenBlacklistService tokenBlacklistService,
+                                UserRepository userRepository,
+                                ValetRequestRepository valetRequestRepository) {
+        this.jwtUtil = jwtUtil;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.userRepository = userRepository;
+        this.valetRequestRepository = valetRequestRepository;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            authenticate(accessor);
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            authorizeSend(accessor);
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscribe(accessor);
+        }
+        return message;
+    }
+
+    private void authorizeSend(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(APP_PREFIX)) {
+            throw new MessagingException("Clients can only send to " + APP_PREFIX + "** destinations.");
+        }
+        String requiredRole = SEND_ROLES.get(destination);
+        if (requiredRole != null
+                && !(accessor.getUser() instanceof StompPrincipal p && requiredRole.equals(p.role()))) {
+            throw new MessagingException("Only " + requiredRole + " users can send to " + destination);
+        }
+    }
+
+    private void authorizeSubscribe(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        StompPrincipal principal = accessor.getUser() instanceof StompPrincipal p ? p : null;
+
+        Matcher tracking = TRACKING_TOPIC.matcher(destination);
+        if (tracking.matches()) {
+            if (principal == null || !isParticipant(Long.valueOf(tracking.group(1)), principal.userId())) {
+                throw new MessagingException("Only the job's customer or valet can watch " + destination);
+            }
+            return;
+        }
+        Matcher offers = OFFERS_TOPIC.matcher(destination);
+        if (offers.matches()) {
+            if (principal == null || !"VALET".equals(principal.role())
+                    || !principal.userId().equals(Long.valueOf(offers.group(1)))) {
+                throw new MessagingException("Only that valet can subscribe to " + destination);
+            }
+            return;
+        }
+        if (destination.equals(JOB_BOARD_TOPIC) || destination.startsWith(JOB_BOARD_TOPIC + "/")) {
+            if (principal == null || !"VALET".equals(principal.role())) {
+                throw new MessagingException("Only VALET users can subscribe to " + destination);
+            }
+        }
+    }
+
+    private boolean isParticipant(Long requestId, Long userId) {
+        List<Object[]> rows = valetRequestRepository.findParticipants(requestId);
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Object[] row = rows.get(0);
+        return userId.equals(row[0]) || userId.equals(row[1]);
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return;
+        }
+        String token = authHeader.substring(7);
+        if (!jwtUtil.isTokenValid(token) || tokenBlacklistService.isBlacklisted(token)) {
+            throw new MessagingException("Invalid or expired token.");
+        }
+        String email = jwtUtil.extractEmail(token);
+        Long userId = userRepository.findByEmail(email)
+                .orElseThrow(() -> new MessagingException("No user found with email: " + email))
+                .getId();
+        accessor.setUser(new StompPrincipal(userId, email, jwtUtil.extractRole(token)));
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartparking.security;
+
+import java.security.Principal;
+
+/**
+ * The user behind a STOMP connection, resolved once at CONNECT by
+ * StompAuthInterceptor so message handlers don't hit the DB per frame.
+ */
+public record StompPrincipal(Long userId, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
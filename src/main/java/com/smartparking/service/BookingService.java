@@ -1,11 +1,15 @@
 package com.smartparking.service;
 
 import com.smartparking.dtos.request.BookingRequestDTO;
+import com.smartparking.dtos.request.BulkBookingRequestDTO;
+import com.smartparking.dtos.response.BookingPageDTO;
 import com.smartparking.dtos.response.BookingResponseDTO;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingResponseDTO createBooking(BookingRequestDTO requestDTO);
+    List<BookingResponseDTO> createBulkBooking(BulkBookingRequestDTO requestDTO);
     List<BookingResponseDTO> getBookingsByCustomer(Long customerId);
     BookingResponseDTO verifyEntryCode(String bookingCode, Long parkingLotId);
     BookingResponseDTO checkoutBooking(String bookingCode);
@@ -13,4 +17,10 @@ public interface BookingService {
     List<BookingResponseDTO> getBookingsByAdmin(Long adminId);
     BookingResponseDTO cancelBooking(Long bookingId);
     BookingResponseDTO getBookingById(Long bookingId);
+
+    // History — keyset pages (cursor null = newest page) and NDJSON streaming
+    BookingPageDTO getBookingsByCustomerPage(Long customerId, String cursor, int limit);
+    BookingPageDTO getBookingsByLotPage(Long lotId, String cursor, int limit);
+    void streamBookingsByCustomer(Long customerId, Consumer<BookingResponseDTO> sink);
+    void streamBookingsByLot(Long lotId, Consumer<BookingResponseDTO> sink);
 }
\ No newline at end of file
@@ -1,7 +1,12 @@
 package com.smartparking.service.Impl;
 
-import com.smartparking.OtherServices.SlotWebSocketService;
+import com.smartparking.OtherServices.BookingCodeGenerator;
+import com.smartparking.OtherServices.SlotAvailabilityIndex;
+import com.smartparking.OtherServices.SlotClaimService;
+import com.smartparking.OtherServices.SlotReservationCalendar;
 import com.smartparking.dtos.request.BookingRequestDTO;
+import com.smartparking.dtos.request.BulkBookingRequestDTO;
+import com.smartparking.dtos.response.BookingPageDTO;
 import com.smartparking.dtos.response.BookingResponseDTO;
 import com.smartparking.entities.Booking;
 import com.smartparking.entities.nums.BookingStatus;
@@ -10,26 +15,39 @@ import com.smartparking.entities.nums.SlotType;
 import com.smartparking.entities.parking.ParkingLot;
 import com.smartparking.entities.parking.Slot;
 import com.smartparking.entities.users.Customer;
+import com.smartparking.events.BookingLifecycleEvent;
+import com.smartparking.events.BulkBookingCreatedEvent;
+import com.smartparking.exceptions.InvalidStateTransitionException;
 import com.smartparking.exceptions.ResourceNotFoundException;
+import com.smartparking.repositories.BookingBatchRepository;
 import com.smartparking.repositories.BookingRepository;
 import com.smartparking.repositories.CustomerRepository;
 import com.smartparking.repositories.ParkingLotRepository;
 import com.smartparking.repositories.SlotRepository;
-import com.smartparking.OtherServices.NotificationService;
 import com.smartparking.service.BookingService;
 import com.smartparking.service.PromoService;
+import com.smartparking.utils.KeysetCursor;
+import com.smartparking.websocket.SlotStatusMessage;
 import com.smartparking.dtos.request.ApplyPromoRequestDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingServiceImpl implements BookingService {
@@ -49,17 +67,40 @@ public class BookingServiceImpl implements BookingService {
     private SlotRepository slotRepository;
 
     @Autowired
-    private SlotWebSocketService slotWebSocketService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    private PromoService promoService;
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
+    @Autowired
+    private SlotClaimService slotClaimService;
+
+    @Autowired
+    private SlotReservationCalendar reservationCalendar;
+
+    @Autowired
+    private BookingCodeGenerator bookingCodeGenerator;
 
     @Autowired
-    private NotificationService notificationService;
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Autowired
+    private PromoService promoService;
+
 
     @Value("${smartparking.valet.base-fee:50.0}")
     private double valetBaseFee;
 
+    // Bookings starting within this window claim a slot right away; later ones only reserve a time window
+    @Value("${smartparking.booking.hold-window-minutes:15}")
+    private long holdWindowMinutes;
+
+    @Value("${smartparking.booking.bulk-max-slots:200}")
+    private int bulkMaxSlots;
+
+    @Value("${smartparking.booking.max-page-size:200}")
+    private int maxPageSize;
+
     @Override
     @Transactional(timeout = 10) // FIX C-1: 10s cap — prevents a stalled lock from hanging the thread forever
     public BookingResponseDTO createBooking(BookingRequestDTO requestDTO) {
@@ -75,16 +116,20 @@ public class BookingServiceImpl implements BookingService {
         }
         SlotType requestedType = SlotType.valueOf(requestDTO.getSlotType().toUpperCase());
 
-        Slot availableSlot = slotRepository
-                .findFirstByParkingLotIdAndStatusAndSlotType(lot.getId(), SlotStatus.AVAILABLE, requestedType)
-                .orElseThrow(() -> new RuntimeException(
-                        "Sorry, this lot is completely full for " + requestedType + " slots!"));
+        validateWindow(requestDTO.getEntryTime(), requestDTO.getExitTime());
 
         Booking booking = new Booking();
-        String bookingCode;
-        do {
-            bookingCode = "BK-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        } while (bookingRepository.existsByBookingCode(bookingCode));
+        String bookingCode = bookingCodeGenerator.nextParkingCode();
+
+        // Future bookings only reserve [entry, exit) in the calendar — the slot stays AVAILABLE
+        // until check-in. Bookings starting now claim the slot atomically as before.
+        boolean advance = requestDTO.getEntryTime()
+                .isAfter(LocalDateTime.now().plusMinutes(holdWindowMinutes));
+        Slot availableSlot = advance
+                ? reserveAhead(lot.getId(), requestedType, bookingCode,
+                               requestDTO.getEntryTime(), requestDTO.getExitTime())
+                : slotClaimService.claimAny(lot.getId(), requestedType, bookingCode, requestDTO.getExitTime());
+
         // C-3 FIX: Never trust the price sent by the client.
         // Recalculate from the slot's actual hourly rate and the requested duration.
         long requestedHours = Math.max(1L, Duration.between(
@@ -109,39 +154,126 @@ public class BookingServiceImpl implements BookingService {
         booking.setExitTime(requestDTO.getExitTime());
         booking.setTotalAmount(serverCalculatedAmount);   // server value, not client value
         booking.setStatus(BookingStatus.PENDING);
+        booking.setAdvanceReservation(advance);
 
         if (requestDTO.isValetBooking()) {
             booking.setPickupOtp(String.format("%04d", SECURE_RANDOM.nextInt(10000)));
             booking.setDropoffOtp(String.format("%04d", SECURE_RANDOM.nextInt(10000)));
         }
 
-        availableSlot.setStatus(SlotStatus.OCCUPIED);
-        slotRepository.save(availableSlot);
-        slotWebSocketService.broadcastSlotUpdate(availableSlot);
-
         Booking savedBooking = bookingRepository.save(booking);
-        // Notify customer: booking confirmed with code and lot name
-        notificationService.notifyBookingConfirmed(
-                customer.getId(),
-                savedBooking.getBookingCode(),
-                savedBooking.getParkingLot().getName());
-        // Also notify lot admin: new booking at their lot
-        notificationService.notifyAdminNewBooking(
-                savedBooking.getParkingLot().getParkingLotAdmin().getId(),
-                savedBooking.getBookingCode(),
-                savedBooking.getSlot().getSlotNumber());
+        // Broadcast + customer/admin notifications run after commit (BookingEventListener)
+        eventPublisher.publishEvent(BookingLifecycleEvent.of(
+                BookingLifecycleEvent.Type.CREATED, savedBooking, advance ? null : availableSlot));
         return mapToResponseDTO(savedBooking);
     }
 
     @Override
-    @Transactional(readOnly = true) // FIX #2a: lazy customer/lot/slot need open session
-    public List<BookingResponseDTO> getBookingsByCustomer(Long customerId) {
-        return bookingRepository.findByCustomerIdOrderByEntryTimeDesc(customerId)
-                .stream()
+    @Transactional(timeout = 30)
+    public List<BookingResponseDTO> createBulkBooking(BulkBookingRequestDTO requestDTO) {
+        Customer customer = customerRepository.findById(requestDTO.getCustomerId())
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found!"));
+
+        LocalDateTime entry = requestDTO.getEntryTime();
+        LocalDateTime exit  = requestDTO.getExitTime();
+        validateWindow(entry, exit);
+
+        if (requestDTO.getItems() == null || requestDTO.getItems().isEmpty()) {
+            throw new IllegalArgumentException("items must not be empty.");
+        }
+
+        // Merge duplicate (lot, type) lines so each group is locked once
+        Map<Long, Map<SlotType, Integer>> counts = new LinkedHashMap<>();
+        int totalSlots = 0;
+        for (BulkBookingRequestDTO.Item item : requestDTO.getItems()) {
+            if (item.getParkingLotId() == null || item.getSlotType() == null || item.getSlotType().isBlank()) {
+                throw new IllegalArgumentException("Every item needs parkingLotId and slotType.");
+            }
+            if (item.getCount() <= 0) {
+                throw new IllegalArgumentException("count must be positive.");
+            }
+            SlotType type = SlotType.valueOf(item.getSlotType().toUpperCase());
+            counts.computeIfAbsent(item.getParkingLotId(), k -> new LinkedHashMap<>())
+                    .merge(type, item.getCount(), Integer::sum);
+            totalSlots += item.getCount();
+        }
+        if (totalSlots > bulkMaxSlots) {
+            throw new IllegalArgumentException("A group booking can reserve at most " + bulkMaxSlots + " slots.");
+        }
+
+        Map<Long, ParkingLot> lots = parkingLotRepository.findAllById(counts.keySet()).stream()
+                .collect(Collectors.toMap(ParkingLot::getId, lot -> lot));
+        if (lots.size() != counts.size()) {
+            throw new ResourceNotFoundException("Parking Lot not found!");
+        }
+
+        List<SlotClaimService.GroupClaim> groups = new ArrayList<>();
+        counts.forEach((lotId, byType) -> byType.forEach((type, count) -> {
+            List<String> codes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                codes.add(bookingCodeGenerator.nextParkingCode());
+            }
+            groups.add(new SlotClaimService.GroupClaim(lotId, type, codes));
+        }));
+
+        boolean advance = entry.isAfter(LocalDateTime.now().plusMinutes(holdWindowMinutes));
+        Map<String, Slot> slotsByCode = advance
+                ? reserveAheadAll(groups, entry, exit)
+                : slotClaimService.claimAll(groups, exit);
+
+        long requestedHours = Math.max(1L, Duration.between(entry, exit).toHours());
+        List<Booking> bookings = new ArrayList<>(slotsByCode.size());
+        slotsByCode.forEach((bookingCode, slot) -> {
+            Booking booking = new Booking();
+            booking.setBookingCode(bookingCode);
+            booking.setCustomer(customer);
+            booking.setParkingLot(lots.get(slot.getParkingLot().getId()));
+            booking.setSlot(slot);
+            booking.setEntryTime(entry);
+            booking.setExitTime(exit);
+            booking.setTotalAmount(slot.getHourlyRate() * requestedHours);
+            booking.setStatus(BookingStatus.PENDING);
+            booking.setAdvanceReservation(advance);
+            bookings.add(booking);
+        });
+
+        bookingBatchRepository.insertAll(bookings);
+        Map<String, Long> ids = new HashMap<>();
+        for (Object[] row : bookingRepository.findIdsByBookingCodes(new ArrayList<>(slotsByCode.keySet()))) {
+            ids.put((String) row[1], (Long) row[0]);
+        }
+        bookings.forEach(b -> b.setId(ids.get(b.getBookingCode())));
+
+        // One broadcast and one admin notification per lot, one notification for the customer — after commit
+        Map<Long, List<Booking>> byLot = bookings.stream()
+                .collect(Collectors.groupingBy(b -> b.getParkingLot().getId(),
+                        LinkedHashMap::new, Collectors.toList()));
+        List<BulkBookingCreatedEvent.LotSummary> summaries = new ArrayList<>();
+        byLot.forEach((lotId, lotBookings) -> summaries.add(new BulkBookingCreatedEvent.LotSummary(
+                lotId,
+                lots.get(lotId).getParkingLotAdmin().getId(),
+                lots.get(lotId).getName(),
+                lotBookings.size(),
+                advance ? List.of() : lotBookings.stream()
+                        .map(b -> SlotStatusMessage.of(b.getSlot()))
+                        .toList())));
+        eventPublisher.publishEvent(new BulkBookingCreatedEvent(
+                customer.getId(),
+                bookings.size(),
+                lots.values().stream().map(ParkingLot::getName).collect(Collectors.joining(", ")),
+                summaries));
+
+        return bookings.stream()
                 .map(this::mapToResponseDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true) // one projection query — nothing lazy-loaded per row
+    public List<BookingResponseDTO> getBookingsByCustomer(Long customerId) {
+        return bookingRepository.findDtosByCustomerId(customerId);
+    }
+
     @Override
     @Transactional
     public BookingResponseDTO verifyEntryCode(String bookingCode, Long parkingLotId) {
@@ -156,12 +288,13 @@ public class BookingServiceImpl implements BookingService {
             throw new RuntimeException("This ticket has already been used or is invalid.");
         }
 
-        booking.setStatus(BookingStatus.ACTIVE);
+        Slot claimedSlot = booking.isAdvanceReservation() ? claimReservedSlot(booking) : null;
+
+        moveTo(booking, BookingStatus.ACTIVE);
         Booking checkedIn = bookingRepository.save(booking);
-        // Notify customer: successfully checked in
-        notificationService.notifyBookingCheckedIn(
-                checkedIn.getCustomer().getId(),
-                checkedIn.getParkingLot().getName());
+        // Notify customer after commit: successfully checked in
+        eventPublisher.publishEvent(BookingLifecycleEvent.of(
+                BookingLifecycleEvent.Type.CHECKED_IN, checkedIn, claimedSlot));
         return mapToResponseDTO(checkedIn);
     }
 
@@ -189,46 +322,192 @@ public class BookingServiceImpl implements BookingService {
 
         booking.setTotalAmount(baseCost + valetFee);
         booking.setExitTime(exitTime);
-        booking.setStatus(BookingStatus.COMPLETED);
+        moveTo(booking, BookingStatus.COMPLETED);
 
-        slot.setStatus(SlotStatus.AVAILABLE);
-        slotRepository.save(slot);
-        slotWebSocketService.broadcastSlotUpdate(slot);
+        Slot freedSlot = releaseSlotIfHeld(booking);
+        reservationCalendar.release(slot.getId(), booking.getBookingCode());
 
         Booking completedBooking = bookingRepository.save(booking);
-        // Notify customer: checkout done with final amount
-        notificationService.notifyBookingCompleted(
-                completedBooking.getCustomer().getId(),
-                completedBooking.getTotalAmount());
-        // Also notify lot admin: checkout revenue
-        notificationService.notifyAdminCheckout(
-                completedBooking.getParkingLot().getParkingLotAdmin().getId(),
-                completedBooking.getBookingCode(),
-                completedBooking.getTotalAmount());
+        // Broadcast + customer/admin checkout notifications run after commit
+        eventPublisher.publishEvent(BookingLifecycleEvent.of(
+                BookingLifecycleEvent.Type.COMPLETED, completedBooking, freedSlot));
         return mapToResponseDTO(completedBooking);
     }
 
     @Override
-    @Transactional(readOnly = true) // FIX #2b: lazy customer/lot/slot need open session
+    @Transactional(readOnly = true) // one projection query — nothing lazy-loaded per row
     public List<BookingResponseDTO> getBookingsByLot(Long lotId) {
-        return bookingRepository.findByParkingLotIdOrderByEntryTimeDesc(lotId)
-                .stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return bookingRepository.findDtosByParkingLotId(lotId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BookingResponseDTO> getBookingsByAdmin(Long adminId) {
-        List<Long> lotIds = parkingLotRepository.findByParkingLotAdminId(adminId)
-                .stream()
-                .map(ParkingLot::getId)
-                .collect(Collectors.toList());
-        if (lotIds.isEmpty()) return List.of();
-        return bookingRepository.findTop10ByParkingLotIdInOrderByEntryTimeDesc(lotIds)
-                .stream()
-                .map(this::mapToResponseDTO)
-                .collect(Collectors.toList());
+        return bookingRepository.findLatestDtosByLotAdminId(adminId);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  History — keyset pagination + streaming
+    // ─────────────────────────────────────────────────────────────────────
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDTO getBookingsByCustomerPage(Long customerId, String cursor, int limit) {
+        int size = clampPageSize(limit);
+        // One extra row tells us whether there is a next page without a COUNT query
+        Pageable page = PageRequest.of(0, size + 1);
+        List<BookingResponseDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = bookingRepository.findDtoPageByCustomerId(customerId, page);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = bookingRepository.findDtoPageByCustomerIdAfter(customerId, after.entryTime(), after.id(), page);
+        }
+        return toPage(rows, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookingPageDTO getBookingsByLotPage(Long lotId, String cursor, int limit) {
+        int size = clampPageSize(limit);
+        Pageable page = PageRequest.of(0, size + 1);
+        List<BookingResponseDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = bookingRepository.findDtoPageByParkingLotId(lotId, page);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = bookingRepository.findDtoPageByParkingLotIdAfter(lotId, after.entryTime(), after.id(), page);
+        }
+        return toPage(rows, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBookingsByCustomer(Long customerId, Consumer<BookingResponseDTO> sink) {
+        try (Stream<BookingResponseDTO> rows = bookingRepository.streamDtosByCustomerId(customerId)) {
+            rows.forEach(sink);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBookingsByLot(Long lotId, Consumer<BookingResponseDTO> sink) {
+        try (Stream<BookingResponseDTO> rows = bookingRepository.streamDtosByParkingLotId(lotId)) {
+            rows.forEach(sink);
+        }
+    }
+
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    private BookingPageDTO toPage(List<BookingResponseDTO> rows, int size) {
+        if (rows.size() <= size) {
+            return new BookingPageDTO(rows, null);
+        }
+        List<BookingResponseDTO> items = rows.subList(0, size);
+        BookingResponseDTO last = items.get(size - 1);
+        return new BookingPageDTO(new ArrayList<>(items),
+                new KeysetCursor(last.getEntryTime(), last.getId()).encode());
+    }
+
+    // Picks a slot whose calendar is free for [entry, exit).
+    private Slot reserveAhead(Long lotId, SlotType type, String bookingCode,
+                              LocalDateTime entry, LocalDateTime exit) {
+        Long slotId = reservationCalendar.reserveAny(reservableCandidates(lotId, type), bookingCode, entry, exit)
+                .orElseThrow(() -> new RuntimeException(
+                        "Sorry, this lot is fully booked for " + type + " slots in that time window!"));
+        return slotRepository.findById(slotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Slot not found with id: " + slotId));
+    }
+
+    // Group version of reserveAhead — candidates are loaded once per (lot, type), slots in one query
+    private Map<String, Slot> reserveAheadAll(List<SlotClaimService.GroupClaim> groups,
+                                              LocalDateTime entry, LocalDateTime exit) {
+        Map<String, Long> assigned = new LinkedHashMap<>();
+        for (SlotClaimService.GroupClaim group : groups) {
+            List<Long> candidates = reservableCandidates(group.lotId(), group.type());
+            for (String bookingCode : group.bookingCodes()) {
+                Long slotId = reservationCalendar.reserveAny(candidates, bookingCode, entry, exit)
+                        .orElseThrow(() -> new RuntimeException("Not enough " + group.type()
+                                + " slots in lot " + group.lotId() + " for that time window."));
+                assigned.put(bookingCode, slotId);
+            }
+        }
+        Map<Long, Slot> byId = slotRepository.findAllById(assigned.values()).stream()
+                .collect(Collectors.toMap(Slot::getId, slot -> slot));
+        Map<String, Slot> result = new LinkedHashMap<>();
+        assigned.forEach((bookingCode, slotId) -> result.put(bookingCode, byId.get(slotId)));
+        return result;
+    }
+
+    // Slots that are free right now come first so a reservation is least likely to need a move at check-in
+    private List<Long> reservableCandidates(Long lotId, SlotType type) {
+        List<Long> availableNow = new ArrayList<>();
+        List<Long> occupiedNow = new ArrayList<>();
+        for (Object[] row : slotRepository.findReservableSlotKeys(lotId, type)) {
+            (row[1] == SlotStatus.AVAILABLE ? availableNow : occupiedNow).add((Long) row[0]);
+        }
+        availableNow.addAll(occupiedNow);
+        return availableNow;
+    }
+
+    // An admin may have freed the slot by hand (OCCUPIED → AVAILABLE), and another booking
+    // may hold it since — the booking still completes or cancels, the slot is left alone.
+    // Returns the slot if it was released, null otherwise.
+    private Slot releaseSlotIfHeld(Booking booking) {
+        Slot slot = booking.getSlot();
+        if (slot.getStatus() != SlotStatus.OCCUPIED
+                || bookingRepository.isSlotHeldByAnother(slot.getId(), booking.getId())) {
+            return null;
+        }
+        moveTo(slot, SlotStatus.AVAILABLE);
+        slotRepository.save(slot);
+        slotAvailabilityIndex.markAvailable(slot);
+        return slot;
+    }
+
+    // Status changes go through the transition tables; the @Version check at flush
+    // catches a concurrent change that slipped in after we read the row
+    private static void moveTo(Booking booking, BookingStatus next) {
+        if (!booking.getStatus().canTransitionTo(next)) {
+            throw new InvalidStateTransitionException(
+                    "Booking " + booking.getBookingCode(), booking.getStatus(), next);
+        }
+        booking.setStatus(next);
+    }
+
+    private static void moveTo(Slot slot, SlotStatus next) {
+        if (!slot.getStatus().canTransitionTo(next)) {
+            throw new InvalidStateTransitionException("Slot " + slot.getSlotNumber(), slot.getStatus(), next);
+        }
+        slot.setStatus(next);
+    }
+
+    private void validateWindow(LocalDateTime entry, LocalDateTime exit) {
+        if (entry == null || exit == null || !exit.isAfter(entry)) {
+            throw new IllegalArgumentException("exitTime must be after entryTime.");
+        }
+        if (!exit.isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("exitTime must be in the future.");
+        }
+    }
+
+    // Check-in of an advance reservation: claim the reserved slot now. If it is still taken
+    // (overstay, valet parking), move the booking to any free slot of the same type.
+    private Slot claimReservedSlot(Booking booking) {
+        Slot reserved = booking.getSlot();
+        if (slotClaimService.claim(reserved)) {
+            return reserved;
+        }
+        reservationCalendar.release(reserved.getId(), booking.getBookingCode());
+        LocalDateTime until = booking.getExitTime().isAfter(LocalDateTime.now())
+                ? booking.getExitTime()
+                : LocalDateTime.now().plusMinutes(holdWindowMinutes);
+        Slot replacement = slotClaimService.claimAny(booking.getParkingLot().getId(),
+                reserved.getSlotType(), booking.getBookingCode(), until);
+        booking.setSlot(replacement);
+        return replacement;
     }
 
     private BookingResponseDTO mapToResponseDTO(Booking booking) {
@@ -257,24 +536,16 @@ public class BookingServiceImpl implements BookingService {
         if (booking.getStatus() == BookingStatus.CANCELLED) {
             throw new RuntimeException("Booking already cancelled.");
         }
-        // Free the slot if active
-        if (booking.getStatus() == BookingStatus.ACTIVE || booking.getStatus() == BookingStatus.PENDING) {
-            Slot slot = booking.getSlot();
-            slot.setStatus(SlotStatus.AVAILABLE);
-            slotRepository.save(slot);
-            slotWebSocketService.broadcastSlotUpdate(slot);
-        }
-        booking.setStatus(BookingStatus.CANCELLED);
+        reservationCalendar.release(booking.getSlot().getId(), booking.getBookingCode());
+        // Free the slot if it was claimed — an advance reservation never took it
+        boolean slotClaimed = booking.getStatus() == BookingStatus.ACTIVE
+                || (booking.getStatus() == BookingStatus.PENDING && !booking.isAdvanceReservation());
+        Slot freedSlot = slotClaimed ? releaseSlotIfHeld(booking) : null;
+        moveTo(booking, BookingStatus.CANCELLED);
         Booking cancelled = bookingRepository.save(booking);
-        // Notify customer: booking has been cancelled
-        notificationService.notifyBookingCancelled(
-                cancelled.getCustomer().getId(),
-                cancelled.getBookingCode());
-        // Also notify lot admin: a slot just freed up
-        notificationService.notifyAdminBookingCancelled(
-                cancelled.getParkingLot().getParkingLotAdmin().getId(),
-                cancelled.getBookingCode(),
-                cancelled.getSlot().getSlotNumber());
+        // Broadcast + customer/admin cancellation notifications run after commit
+        eventPublisher.publishEvent(BookingLifecycleEvent.of(
+                BookingLifecycleEvent.Type.CANCELLED, cancelled, freedSlot));
         return mapToResponseDTO(cancelled);
     }
 
@@ -1,6 +1,9 @@
 package com.smartparking.service.Impl;
 
+import com.smartparking.OtherServices.LotClusterIndex;
+import com.smartparking.OtherServices.ParkingLotSpatialIndex;
 import com.smartparking.dtos.request.ParkingLotRequestDTO;
+import com.smartparking.dtos.response.LotClusterDTO;
 import com.smartparking.dtos.response.ParkingLotResponseDTO;
 import com.smartparking.entities.admins.ParkingLotAdmin;
 import com.smartparking.entities.nums.ParkingLotStatus;
@@ -34,6 +37,12 @@ public class ParkingLotServiceImpl implements ParkingLotService {
     @Autowired
     private FeatureRepository featureRepository;
 
+    @Autowired
+    private ParkingLotSpatialIndex parkingLotSpatialIndex;
+
+    @Autowired
+    private LotClusterIndex lotClusterIndex;
+
     @Override
     @Transactional
     public ParkingLotResponseDTO createParkingLot(ParkingLotRequestDTO requestDTO) {
@@ -55,6 +64,7 @@ public class ParkingLotServiceImpl implements ParkingLotService {
         lot.setCompanyVerified(false);
 
         ParkingLot savedLot = parkingLotRepository.save(lot);
+        parkingLotSpatialIndex.onLotSaved(savedLot);
         return mapToResponseDTO(savedLot);
     }
 
@@ -78,7 +88,9 @@ public class ParkingLotServiceImpl implements ParkingLotService {
         lot.setLatitude(requestDTO.getLatitude());
         lot.setLongitude(requestDTO.getLongitude());
 
-        return mapToResponseDTO(parkingLotRepository.save(lot));
+        ParkingLot savedLot = parkingLotRepository.save(lot);
+        parkingLotSpatialIndex.onLotSaved(savedLot);
+        return mapToResponseDTO(savedLot);
     }
 
     @Override
@@ -88,6 +100,7 @@ public class ParkingLotServiceImpl implements ParkingLotService {
                 .orElseThrow(() -> new UnauthorizedAccessException(
                         "Access Denied: You do not own this parking lot or it does not exist."));
         parkingLotRepository.delete(lot);
+        parkingLotSpatialIndex.onLotDeleted(lotId);
     }
 
     @Override
@@ -120,7 +133,9 @@ public class ParkingLotServiceImpl implements ParkingLotService {
                 .orElseThrow(() -> new UnauthorizedAccessException(
                         "Access Denied: You do not own this parking lot."));
         lot.setStatus(status);
-        return mapToResponseDTO(parkingLotRepository.save(lot));
+        ParkingLot savedLot = parkingLotRepository.save(lot);
+        parkingLotSpatialIndex.onLotSaved(savedLot);
+        return mapToResponseDTO(savedLot);
     }
 
     @Override
@@ -155,6 +170,13 @@ public class ParkingLotServiceImpl implements ParkingLotService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<LotClusterDTO> getLotClusters(double minLat, double maxLat,
+                                              double minLng, double maxLng, int zoom) {
+        // Served from the pre-aggregated per-zoom grids — no DB access per request
+        return lotClusterIndex.clusters(minLat, maxLat, minLng, maxLng, zoom);
+    }
+
     private ParkingLotResponseDTO mapToResponseDTO(ParkingLot lot) {
         ParkingLotResponseDTO dto = new ParkingLotResponseDTO();
         dto.setId(lot.getId());
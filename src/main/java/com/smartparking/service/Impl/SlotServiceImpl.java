@@ -1,5 +1,6 @@
 package com.smartparking.service.Impl;
 
+import com.smartparking.OtherServices.SlotAvailabilityIndex;
 import com.smartparking.dtos.request.BulkSlotRequestDTO;
 import com.smartparking.dtos.request.SlotRequestDTO;
 import com.smartparking.dtos.response.SlotResponseDTO;
@@ -8,6 +9,7 @@ import com.smartparking.entities.nums.SlotType;
 import com.smartparking.entities.parking.ParkingLot;
 import com.smartparking.entities.parking.Slot;
 import com.smartparking.exceptions.DuplicateResourceException;
+import com.smartparking.exceptions.InvalidStateTransitionException;
 import com.smartparking.exceptions.ResourceNotFoundException;
 import com.smartparking.repositories.ParkingLotRepository;
 import com.smartparking.repositories.SlotRepository;
@@ -29,6 +31,9 @@ public class SlotServiceImpl implements SlotService {
     @Autowired
     private ParkingLotRepository parkingLotRepository;
 
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
     @Override
     @Transactional
     public SlotResponseDTO createSlot(SlotRequestDTO requestDTO) {
@@ -60,7 +65,9 @@ public class SlotServiceImpl implements SlotService {
         slot.setParkingLot(lot);
         slot.setHourlyRate(requestDTO.getHourlyRate());
 
-        return mapToResponseDTO(slotRepository.save(slot));
+        Slot saved = slotRepository.save(slot);
+        slotAvailabilityIndex.markAvailable(saved);
+        return mapToResponseDTO(saved);
     }
 
     @Override
@@ -77,8 +84,17 @@ public class SlotServiceImpl implements SlotService {
     public SlotResponseDTO updateSlotStatus(Long slotId, SlotStatus newStatus) {
         Slot slot = slotRepository.findById(slotId)
                 .orElseThrow(() -> new ResourceNotFoundException("Slot not found with id: " + slotId));
+        if (slot.getStatus() == newStatus) {
+            return mapToResponseDTO(slot);
+        }
+        // An occupied slot must be checked out first — otherwise a booking would lose its slot
+        if (!slot.getStatus().canTransitionTo(newStatus)) {
+            throw new InvalidStateTransitionException("Slot " + slot.getSlotNumber(), slot.getStatus(), newStatus);
+        }
         slot.setStatus(newStatus);
-        return mapToResponseDTO(slotRepository.save(slot));
+        Slot saved = slotRepository.save(slot);
+        slotAvailabilityIndex.onStatusChange(saved);
+        return mapToResponseDTO(saved);
     }
 
     @Override
@@ -87,6 +103,7 @@ public class SlotServiceImpl implements SlotService {
         Slot slot = slotRepository.findById(slotId)
                 .orElseThrow(() -> new ResourceNotFoundException("Slot not found with id: " + slotId));
         slotRepository.delete(slot);
+        slotAvailabilityIndex.markUnavailable(slot);
     }
 
     @Override
@@ -121,7 +138,7 @@ public class SlotServiceImpl implements SlotService {
                 }
             }
 
-            slotRepository.saveAll(slotsToSave);
+            slotRepository.saveAll(slotsToSave).forEach(slotAvailabilityIndex::markAvailable);
             return String.format(
                     "Successfully generated %d %s slots on floor %s for lot: %s",
                     slotsToSave.size(), type, floor, lot.getName());
@@ -147,7 +164,7 @@ public class SlotServiceImpl implements SlotService {
         for (long i = existingBike + 1; i <= existingBike + bikeCount;    i++)
             slotsToSave.add(buildSlot(lot, "BIKE-" + i, SlotType.BIKE,          "G", rate));
 
-        slotRepository.saveAll(slotsToSave);
+        slotRepository.saveAll(slotsToSave).forEach(slotAvailabilityIndex::markAvailable);
         return String.format(
                 "Successfully generated %d slots for lot: %s [REG:%d | EV:%d | HV:%d | BIKE:%d]",
                 slotsToSave.size(), lot.getName(), regularCount, evCount, hvCount, bikeCount);
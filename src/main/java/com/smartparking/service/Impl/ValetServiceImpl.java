@@ -1,6 +1,11 @@
 package com.smartparking.service.Impl;
 
+import com.smartparking.OtherServices.SlotAvailabilityIndex;
+import com.smartparking.OtherServices.ValetDispatcher;
+import com.smartparking.OtherServices.SlotClaimService;
 import com.smartparking.OtherServices.SlotWebSocketService;
+import com.smartparking.OtherServices.TripTrailStore;
+import com.smartparking.OtherServices.ValetTrackingService;
 import com.smartparking.dtos.request.ValetBookingRequestDTO;
 import com.smartparking.dtos.response.ValetResponseDTO;
 import com.smartparking.entities.valet.ValetRequest;
@@ -10,6 +15,7 @@ import com.smartparking.entities.parking.ParkingLot;
 import com.smartparking.entities.parking.Slot;
 import com.smartparking.entities.users.Customer;
 import com.smartparking.entities.valet.Valet;
+import com.smartparking.exceptions.InvalidStateTransitionException;
 import com.smartparking.exceptions.ResourceNotFoundException;
 import com.smartparking.repositories.*;
 import com.smartparking.OtherServices.NotificationService;
@@ -53,6 +59,12 @@ public class ValetServiceImpl implements ValetService {
     @Autowired
     private SlotWebSocketService slotWebSocketService;
 
+    @Autowired
+    private SlotAvailabilityIndex slotAvailabilityIndex;
+
+    @Autowired
+    private SlotClaimService slotClaimService;
+
     @Autowired
     private ValetEarningsService valetEarningsService;
 
@@ -62,6 +74,15 @@ public class ValetServiceImpl implements ValetService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private ValetDispatcher valetDispatcher;
+
+    @Autowired
+    private ValetTrackingService valetTrackingService;
+
+    @Autowired
+    private TripTrailStore tripTrailStore;
+
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
     private String generateOTP() {
@@ -89,9 +110,7 @@ public class ValetServiceImpl implements ValetService {
         ValetRequest saved = valetRequestRepository.save(request);
         // Notify customer: request submitted
         notificationService.notifyValetRequested(customer.getId());
-        // Notify ALL available valets: new job posted
-        valetRepository.findAllAvailableValets().forEach(v ->
-                notificationService.notifyValetNewJobAvailable(v.getId(), customer.getName()));
+        // No broadcast — ValetDispatcher offers the job to one valet on its next tick
         return mapToResponseDTO(saved);
     }
 
@@ -122,22 +141,27 @@ public class ValetServiceImpl implements ValetService {
             throw new RuntimeException("This job is no longer available.");
         }
 
+        // While the dispatcher's offer is open, only the chosen valet can take the job
+        valetDispatcher.checkCanAccept(requestId, valetId);
+
         Valet valet = valetRepository.findById(valetId)
                 .orElseThrow(() -> new ResourceNotFoundException("Valet not found!"));
 
         request.setValet(valet);
-        request.setStatus(ValetStatus.ACCEPTED);
+        moveTo(request, ValetStatus.ACCEPTED);
 
-        ValetRequest saved = valetRequestRepository.save(request);
+        ValetRequest saved = valetRequestRepository.saveAndFlush(request);
+        valetDispatcher.onAccepted(requestId, valetId);
         // Notify customer: valet accepted and is on the way
         notificationService.notifyValetAccepted(request.getCustomer().getId(), valet.getName());
-        // Notify other available valets: job is no longer available
-        valetRepository.findAllAvailableValets().stream()
-                .filter(v -> !v.getId().equals(valetId))
-                .forEach(v -> notificationService.notifyValetJobTaken(v.getId()));
         return mapToResponseDTO(saved);
     }
 
+    @Override
+    public void declineOffer(Long requestId, Long valetId) {
+        valetDispatcher.decline(requestId, valetId);
+    }
+
     @Override
     @Transactional
     public ValetResponseDTO verifyPickup(Long requestId, String enteredOtp) {
@@ -153,8 +177,8 @@ public class ValetServiceImpl implements ValetService {
             throw new RuntimeException("Invalid Pickup OTP! Do not hand over the keys.");
         }
 
-        request.setStatus(ValetStatus.PICKED_UP);
-        ValetRequest pickedUp = valetRequestRepository.save(request);
+        moveTo(request, ValetStatus.PICKED_UP);
+        ValetRequest pickedUp = valetRequestRepository.saveAndFlush(request);
         // Notify customer: valet has the keys and is heading to the lot
         notificationService.notifyCarPickedUp(
                 request.getCustomer().getId(),
@@ -185,15 +209,14 @@ public class ValetServiceImpl implements ValetService {
             throw new IllegalArgumentException("Slot " + slotId + " does not belong to lot " + lotId + ".");
         }
 
-        // M-1 FIX: Verify the slot is still available before marking it occupied.
-        if (slot.getStatus() != SlotStatus.AVAILABLE) {
-            throw new RuntimeException("Slot " + slot.getSlotNumber() + " is already " + slot.getStatus() + ". Choose a different slot.");
+        // M-1 FIX: Claim the slot atomically — a conditional UPDATE, so two valets
+        // racing for the same slot can never both park in it.
+        if (!slotClaimService.claim(slot)) {
+            throw new RuntimeException("Slot " + slot.getSlotNumber() + " is no longer available. Choose a different slot.");
         }
 
         request.setParkingLot(lot);
         request.setSlot(slot);
-        slot.setStatus(SlotStatus.OCCUPIED);
-        slotRepository.save(slot);
         slotWebSocketService.broadcastSlotUpdate(slot);
 
         List<String> savedImagePaths = new ArrayList<>();
@@ -250,10 +273,10 @@ public class ValetServiceImpl implements ValetService {
         // can see exactly where their car is on a map.
         request.setParkedLatitude(lot.getLatitude());
         request.setParkedLongitude(lot.getLongitude());
-        request.setStatus(ValetStatus.PARKED);
+        moveTo(request, ValetStatus.PARKED);
         request.setParkedAt(LocalDateTime.now());
 
-        ValetRequest parkedReq = valetRequestRepository.save(request);
+        ValetRequest parkedReq = valetRequestRepository.saveAndFlush(request);
         // Notify customer: car is safely parked with lot + slot info
         notificationService.notifyCarParked(
                 request.getCustomer().getId(),
@@ -272,8 +295,8 @@ public class ValetServiceImpl implements ValetService {
                     "Cannot request vehicle return — current status is: " + request.getStatus());
         }
 
-        request.setStatus(ValetStatus.RETURN_REQUESTED);
-        ValetRequest returnReq = valetRequestRepository.save(request);
+        moveTo(request, ValetStatus.RETURN_REQUESTED);
+        ValetRequest returnReq = valetRequestRepository.saveAndFlush(request);
         // Notify VALET: customer wants their car back
         if (request.getValet() != null) {
             notificationService.notifyReturnRequested(
@@ -300,15 +323,22 @@ public class ValetServiceImpl implements ValetService {
 
         Slot slot = request.getSlot();
         if (slot != null) {
+            if (!slot.getStatus().canTransitionTo(SlotStatus.AVAILABLE)) {
+                throw new InvalidStateTransitionException(
+                        "Slot " + slot.getSlotNumber(), slot.getStatus(), SlotStatus.AVAILABLE);
+            }
             slot.setStatus(SlotStatus.AVAILABLE);
             slotRepository.save(slot);
+            slotAvailabilityIndex.markAvailable(slot);
             slotWebSocketService.broadcastSlotUpdate(slot);
         }
 
-        request.setStatus(ValetStatus.COMPLETED);
+        moveTo(request, ValetStatus.COMPLETED);
         request.setCompletedAt(LocalDateTime.now());
+        // The driven path is stored once, with the completion
+        tripTrailStore.complete(requestId);
 
-        ValetRequest saved = valetRequestRepository.save(request);
+        ValetRequest saved = valetRequestRepository.saveAndFlush(request);
         // Notify customer: car has been returned, job done
         notificationService.notifyJobCompleted(
                 request.getCustomer().getId(),
@@ -327,6 +357,22 @@ public class ValetServiceImpl implements ValetService {
         return mapToResponseDTO(saved);
     }
 
+    /**
+     * Every status change goes through ValetStatus's transition table. The row is
+     * versioned, so the saveAndFlush that follows is UPDATE ... WHERE id = ? AND
+     * version = ? — two valets accepting the same job can't both win, and the
+     * loser fails before any notification goes out.
+     *
+     * The customer's tracking topic hears about the change once it commits.
+     */
+    private void moveTo(ValetRequest request, ValetStatus next) {
+        if (!request.getStatus().canTransitionTo(next)) {
+            throw new InvalidStateTransitionException("Valet request " + request.getId(), request.getStatus(), next);
+        }
+        request.setStatus(next);
+        valetTrackingService.onStatusChanged(request);
+    }
+
     private ValetRequest getRequest(Long id) {
         return valetRequestRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Valet Request not found!"));
@@ -1,6 +1,7 @@
 package com.smartparking.service;
 
 import com.smartparking.dtos.request.ParkingLotRequestDTO;
+import com.smartparking.dtos.response.LotClusterDTO;
 import com.smartparking.dtos.response.ParkingLotResponseDTO;
 import com.smartparking.entities.nums.ParkingLotStatus;
 
@@ -27,4 +28,6 @@ public interface ParkingLotService {
     ParkingLotResponseDTO getLotById(Long lotId);
 
     List<ParkingLotResponseDTO> getNearbyLots(double latitude, double longitude, int limit);
+
+    List<LotClusterDTO> getLotClusters(double minLat, double maxLat, double minLng, double maxLng, int zoom);
 }
\ No newline at end of file
@@ -17,6 +17,9 @@ public interface ValetService {
 
     ValetResponseDTO acceptJob(Long requestId, Long valetId);
 
+    // Valet passes on a job the dispatcher offered them
+    void declineOffer(Long requestId, Long valetId);
+
     ValetResponseDTO verifyPickup(Long requestId, String enteredOtp);
 
     ValetResponseDTO parkVehicle(Long requestId, Long lotId, Long slotId,
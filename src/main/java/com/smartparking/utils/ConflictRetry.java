@@ -0,0 +1,47 @@
+package com.smartparking.utils;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy for optimistic-lock conflicts (@Version on Booking, Slot, ValetRequest).
+ *
+ * A conflict means someone else changed the row between our read and our
+ * write — e.g. a cancel racing a checkout. Re-running the whole transaction
+ * re-reads the fresh state, and the transition tables then give the real
+ * answer ("Cannot cancel a completed booking.") instead of a lost update.
+ *
+ * Must wrap the @Transactional call from OUTSIDE — a retry inside the same
+ * transaction would see the same stale persistence context. After the last
+ * attempt the exception propagates and GlobalExceptionHandler answers 409.
+ */
+public class ConflictRetry {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private ConflictRetry() {}
+
+    public static <T> T run(Supplier<T> transactionalCall) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionalCall.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Small jittered pause so two retrying requests don't collide again in lockstep
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
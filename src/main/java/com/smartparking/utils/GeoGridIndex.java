@@ -0,0 +1,228 @@
+package com.smartparking.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Uniform lat/lon grid of points — the spatial index behind the "what's near
+ * me" lookups (lots, valets, rental cars).
+ *
+ * The world is cut into square cells of cellDeg degrees. A point lives in
+ * exactly one cell, so:
+ *  - put / move / remove are O(1) hash operations.
+ *  - A radius query only visits the cells overlapping the circle's bounding
+ *    box, then runs Haversine on the points inside them.
+ *  - A k-nearest query expands rings of cells around the query cell and stops
+ *    as soon as the next ring can't hold anything closer than the k-th hit.
+ *
+ * Thread-safe: readers never block writers. A query running during a move may
+ * see the point in its old or new cell, never in both.
+ *
+ * Pick cellDeg close to the typical search radius — 0.02° is about 2.2 km.
+ */
+public class GeoGridIndex<V> {
+
+    private static final double KM_PER_DEGREE = 111.195;
+
+    private final double cellDeg;
+    private final int columns;
+
+    private final Map<Long, Map<Long, Point<V>>> cells = new ConcurrentHashMap<>();
+    private final Map<Long, Point<V>> points = new ConcurrentHashMap<>();
+
+    public GeoGridIndex(double cellDeg) {
+        if (cellDeg <= 0 || cellDeg > 10) {
+            throw new IllegalArgumentException("cellDeg must be in (0, 10], got " + cellDeg);
+        }
+        this.cellDeg = cellDeg;
+        this.columns = (int) Math.ceil(360.0 / cellDeg);
+    }
+
+    public record Point<V>(long id, double lat, double lon, V value) {}
+
+    public record Hit<V>(long id, V value, double distanceKm) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Writes
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Adds the point, or moves it if the id is already indexed. */
+    public void put(long id, double lat, double lon, V value) {
+        Point<V> point = new Point<>(id, lat, lon, value);
+        points.compute(id, (k, old) -> {
+            long newCell = cellOf(lat, lon);
+            if (old != null) {
+                long oldCell = cellOf(old.lat(), old.lon());
+                if (oldCell != newCell) {
+                    removeFromCell(oldCell, id);
+                }
+            }
+            // compute(), not computeIfAbsent().put() — a concurrent remove could drop the empty cell in between
+            cells.compute(newCell, (c, cell) -> {
+                Map<Long, Point<V>> target = cell != null ? cell : new ConcurrentHashMap<>();
+                target.put(id, point);
+                return target;
+            });
+            return point;
+        });
+    }
+
+    public void remove(long id) {
+        points.computeIfPresent(id, (k, old) -> {
+            removeFromCell(cellOf(old.lat(), old.lon()), id);
+            return null;
+        });
+    }
+
+    /** Swaps in a complete set of points — used by the periodic rebuild from the DB. */
+    public void replaceAll(List<Point<V>> fresh) {
+        Set<Long> keep = new HashSet<>();
+        fresh.forEach(p -> keep.add(p.id()));
+        points.keySet().stream().filter(id -> !keep.contains(id)).toList().forEach(this::remove);
+        fresh.forEach(p -> put(p.id(), p.lat(), p.lon(), p.value()));
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    public Point<V> get(long id) {
+        return points.get(id);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Queries
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** Every point within radiusKm, nearest first. */
+    public List<Hit<V>> withinRadius(double lat, double lon, double radiusKm) {
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double lonSpan = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+        int rowMin = row(Math.max(lat - latSpan, -90));
+        int rowMax = row(Math.min(lat + latSpan, 90));
+        int colSpan = (int) Math.min(Math.ceil(lonSpan / cellDeg), columns / 2);
+        int centerCol = column(lon);
+
+        GeoUtils.Origin origin = new GeoUtils.Origin(lat, lon);
+        double threshold = GeoUtils.haversineThreshold(radiusKm);
+        List<Hit<V>> hits = new ArrayList<>();
+        for (int r = rowMin; r <= rowMax; r++) {
+            for (int dc = -colSpan; dc <= colSpan; dc++) {
+                Map<Long, Point<V>> cell = cells.get(key(r, centerCol + dc));
+                if (cell == null) {
+                    continue;
+                }
+                for (Point<V> p : cell.values()) {
+                    // Cheap exact test first; the full distance only for points that are in
+                    if (origin.isWithin(p.lat(), p.lon(), threshold)) {
+                        hits.add(new Hit<>(p.id(), p.value(), origin.distanceKm(p.lat(), p.lon())));
+                    }
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits;
+    }
+
+    /**
+     * Up to k points within maxKm that pass the filter, nearest first.
+     * The filter must be cheap — it runs on every point of every visited cell.
+     */
+    public List<Hit<V>> nearest(double lat, double lon, int k, double maxKm, Predicate<V> filter) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // Max-heap on distance holding the best k so far
+        PriorityQueue<Hit<V>> best = new PriorityQueue<>(
+                Comparator.comparingDouble((Hit<V> h) -> h.distanceKm()).reversed());
+        int centerRow = row(lat);
+        int centerCol = column(lon);
+        GeoUtils.Origin origin = new GeoUtils.Origin(lat, lon);
+        int maxRing = (int) Math.ceil(maxKm / (KM_PER_DEGREE * cellDeg * minCos(lat, maxKm))) + 1;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            visitRing(centerRow, centerCol, ring, p -> {
+                if (!filter.test(p.value())) {
+                    return;
+                }
+                double d = origin.distanceKm(p.lat(), p.lon());
+                if (d > maxKm) {
+                    return;
+                }
+                if (best.size() < k) {
+                    best.add(new Hit<>(p.id(), p.value(), d));
+                } else if (d < best.peek().distanceKm()) {
+                    best.poll();
+                    best.add(new Hit<>(p.id(), p.value(), d));
+                }
+            });
+            // Anything in ring+1 is at least `ring` whole cells away
+            double nextRingMinKm = ring * cellDeg * KM_PER_DEGREE * minCos(lat, (ring + 1) * cellDeg * KM_PER_DEGREE);
+            if (best.size() == k && nextRingMinKm > best.peek().distanceKm()) {
+                break;
+            }
+            if (nextRingMinKm > maxKm) {
+                break;
+            }
+        }
+        List<Hit<V>> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return sorted;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    private void visitRing(int centerRow, int centerCol, int ring, Consumer<Point<V>> visitor) {
+        for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+            boolean edgeRow = r == centerRow - ring || r == centerRow + ring;
+            int step = edgeRow ? 1 : 2 * ring;
+            for (int c = centerCol - ring; c <= centerCol + ring; c += Math.max(step, 1)) {
+                Map<Long, Point<V>> cell = cells.get(key(r, c));
+                if (cell != null) {
+                    cell.values().forEach(visitor);
+                }
+            }
+        }
+    }
+
+    // Cell width in km shrinks with cos(latitude) — use the narrowest within reach
+    private static double minCos(double lat, double reachKm) {
+        double farthestLat = Math.min(Math.abs(lat) + reachKm / KM_PER_DEGREE, 89.0);
+        return Math.max(Math.cos(Math.toRadians(farthestLat)), 0.01);
+    }
+
+    private void removeFromCell(long cellKey, long id) {
+        cells.computeIfPresent(cellKey, (c, cell) -> {
+            cell.remove(id);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    private long cellOf(double lat, double lon) {
+        return key(row(lat), column(lon));
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor((lat + 90.0) / cellDeg);
+    }
+
+    private int column(double lon) {
+        return (int) Math.floor((lon + 180.0) / cellDeg);
+    }
+
+    // Columns wrap around the antimeridian
+    private long key(int row, int column) {
+        int wrapped = Math.floorMod(column, columns);
+        return ((long) row << 32) | wrapped;
+    }
+}
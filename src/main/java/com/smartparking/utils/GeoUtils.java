@@ -1,5 +1,8 @@
 package com.smartparking.utils;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Utility class for GPS / geographic calculations.
  *
@@ -62,6 +65,9 @@ public class GeoUtils {
     /**
      * Check if a location is within a given radius.
      *
+     * Exact, but cheaper than comparing calculateDistanceKm: d <= r is the same
+     * as haversine(a) <= sin²(r / 2R), so atan2 and sqrt are never evaluated.
+     *
      * @param centerLat  Center latitude
      * @param centerLon  Center longitude
      * @param pointLat   Point latitude to check
@@ -72,6 +78,152 @@ public class GeoUtils {
     public static boolean isWithinRadius(double centerLat, double centerLon,
                                          double pointLat, double pointLon,
                                          double radiusKm) {
-        return calculateDistanceKm(centerLat, centerLon, pointLat, pointLon) <= radiusKm;
+        double cosCenter = Math.cos(Math.toRadians(centerLat));
+        return haversineA(centerLat, cosCenter, centerLon, pointLat, pointLon) <= haversineThreshold(radiusKm);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Fast path — one origin measured against many points (GeoGridIndex)
+    // ─────────────────────────────────────────────────────────────────────
+
+    /**
+     * A query point with its trigonometry done once — for measuring one origin
+     * against many candidates (grid cells, valet lists).
+     */
+    public static final class Origin {
+        private final double lat;
+        private final double lon;
+        private final double cosLat;
+
+        public Origin(double lat, double lon) {
+            this.lat = lat;
+            this.lon = lon;
+            this.cosLat = Math.cos(Math.toRadians(lat));
+        }
+
+        /** Exact Haversine distance, one cos cheaper than calculateDistanceKm. */
+        public double distanceKm(double lat2, double lon2) {
+            double a = haversineA(lat, cosLat, lon, lat2, lon2);
+            return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+
+        /** Exact radius test without asin/sqrt — pass haversineThreshold(radiusKm). */
+        public boolean isWithin(double lat2, double lon2, double threshold) {
+            return haversineA(lat, cosLat, lon, lat2, lon2) <= threshold;
+        }
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Geohash — coarse, string-keyed cells for caches and topic names
+    // ─────────────────────────────────────────────────────────────────────
+
+    private static final String GEOHASH_BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    /**
+     * Standard geohash of the point. Precision 5 ≈ 4.9 × 4.9 km,
+     * 6 ≈ 1.2 × 0.6 km, 7 ≈ 150 × 150 m. Nearby points share a prefix.
+     */
+    public static String geohash(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        char[] out = new char[precision];
+        boolean evenBit = true;
+        for (int i = 0; i < precision; i++) {
+            int ch = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (lon >= mid) { ch = (ch << 1) | 1; minLon = mid; } else { ch <<= 1; maxLon = mid; }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (lat >= mid) { ch = (ch << 1) | 1; minLat = mid; } else { ch <<= 1; maxLat = mid; }
+                }
+                evenBit = !evenBit;
+            }
+            out[i] = GEOHASH_BASE32.charAt(ch);
+        }
+        return new String(out);
     }
-}
\ No newline at end of file
+
+    /** Centre of a geohash cell as {latitude, longitude}. */
+    public static double[] geohashCenter(String geohash) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            int ch = GEOHASH_BASE32.indexOf(Character.toLowerCase(geohash.charAt(i)));
+            if (ch < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((ch >> bit) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (set) minLon = mid; else maxLon = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{(minLat + maxLat) / 2, (minLon + maxLon) / 2};
+    }
+
+    /**
+     * Every geohash cell of the given precision that overlaps the circle's
+     * bounding box — the regions a "job near here" message is published to.
+     * Samples the box one cell apart, so no cell in between is skipped.
+     */
+    public static Set<String> geohashesCovering(double lat, double lon, double radiusKm, int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        int latBits = 5 * precision / 2;
+        double cellLon = 360.0 / (1L << lonBits);
+        double cellLat = 180.0 / (1L << latBits);
+        BoundingBox box = boundingBox(lat, lon, radiusKm);
+        Set<String> cells = new LinkedHashSet<>();
+        for (double y = box.minLat(); ; y = Math.min(y + cellLat, box.maxLat())) {
+            for (double x = box.minLon(); ; x = Math.min(x + cellLon, box.maxLon())) {
+                // Fold longitudes past the antimeridian back into [-180, 180)
+                cells.add(geohash(y, ((x + 180.0) % 360.0 + 360.0) % 360.0 - 180.0, precision));
+                if (x >= box.maxLon()) {
+                    break;
+                }
+            }
+            if (y >= box.maxLat()) {
+                break;
+            }
+        }
+        return cells;
+    }
+
+    /** sin²(r / 2R): the haversine "a" value of a point exactly radiusKm away. */
+    public static double haversineThreshold(double radiusKm) {
+        double half = Math.min(radiusKm / (2 * EARTH_RADIUS_KM), Math.PI / 2);
+        double s = Math.sin(half);
+        return s * s;
+    }
+
+    // Haversine "a" term with the first point's cos(latitude) supplied by the caller
+    private static double haversineA(double lat1, double cosLat1, double lon1, double lat2, double lon2) {
+        double sinDLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        return sinDLat * sinDLat + cosLat1 * Math.cos(Math.toRadians(lat2)) * sinDLon * sinDLon;
+    }
+
+    /**
+     * Lat/lon rectangle that contains every point within radiusKm of the centre.
+     *
+     * Used as a cheap prefilter: "latitude BETWEEN ... AND longitude BETWEEN ..."
+     * can use an index, the exact Haversine then only runs on the rows inside.
+     * Longitude span widens with latitude; it is clamped near the poles.
+     */
+    public static BoundingBox boundingBox(double lat, double lon, double radiusKm) {
+        double latSpan = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        double lonSpan = Math.min(latSpan / cosLat, 180.0);
+        return new BoundingBox(
+                Math.max(lat - latSpan, -90.0), Math.min(lat + latSpan, 90.0),
+                lon - lonSpan, lon + lonSpan);
+    }
+
+    public record BoundingBox(double minLat, double maxLat, double minLon, double maxLon) {}
+}
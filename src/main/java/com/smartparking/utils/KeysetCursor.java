@@ -0,0 +1,31 @@
+package com.smartparking.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination on (entryTime DESC, id DESC).
+ *
+ * The client only ever echoes the string back; it is base64url of
+ * "entryTime|id". Because it points at a row's sort key rather than an offset,
+ * pages stay stable while new bookings arrive, and page N costs the same as page 1.
+ */
+public record KeysetCursor(LocalDateTime entryTime, Long id) {
+
+    public String encode() {
+        String raw = entryTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, sep)),
+                                    Long.valueOf(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartparking.utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment on a sparse bipartite graph — Bertsekas' auction
+ * algorithm, used by ValetDispatcher to pair open jobs with valets.
+ *
+ * Persons (jobs) bid for objects (valets) they have an edge to. Each bid raises
+ * the object's price by the bidder's margin over their second-best option plus
+ * epsilon, and knocks the previous owner back into the queue. Bidding stops
+ * when everyone is either assigned or better off unassigned.
+ *
+ * Rules:
+ *  - Only listed edges exist. With k edges per person a round costs O(k), so
+ *    1,000 × 1,000 with k = 8 settles in tens of milliseconds.
+ *  - Leaving a person unassigned costs unassignedCost; an edge dearer than that
+ *    is never used.
+ *  - The result is within persons × epsilon of the optimal total cost.
+ *  - Past deadlineNanos bidding stops and the remaining persons are filled
+ *    greedily from objects nobody holds — always a valid one-to-one matching.
+ */
+public final class SparseAuction {
+
+    private SparseAuction() {}
+
+    /**
+     * @param edges    edges[i] = object indices person i can take
+     * @param costs    costs[i][e] = cost of person i taking edges[i][e]
+     * @param objects  number of objects
+     * @return assignment[i] = object index, or -1 if person i stays unassigned
+     */
+    public static int[] solve(int[][] edges, double[][] costs, int objects,
+                              double unassignedCost, double epsilon, long deadlineNanos) {
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException("epsilon must be positive, got " + epsilon);
+        }
+        int persons = edges.length;
+        int[] assignment = new int[persons];
+        Arrays.fill(assignment, -1);
+        int[] owner = new int[objects];
+        Arrays.fill(owner, -1);
+        double[] price = new double[objects];
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < persons; i++) {
+            if (edges[i].length > 0) {
+                queue.add(i);
+            }
+        }
+
+        int rounds = 0;
+        while (!queue.isEmpty()) {
+            // nanoTime() is cheap but not free — check it every 256 bids
+            if ((++rounds & 255) == 0 && System.nanoTime() > deadlineNanos) {
+                fillGreedily(queue, edges, costs, owner, assignment, unassignedCost);
+                return assignment;
+            }
+            int i = queue.poll();
+            // Staying unassigned is always an option, worth -unassignedCost
+            double best = -unassignedCost;
+            double second = -unassignedCost;
+            int bestObject = -1;
+            for (int e = 0; e < edges[i].length; e++) {
+                int j = edges[i][e];
+                double value = -costs[i][e] - price[j];
+                if (value > best) {
+                    second = best;
+                    best = value;
+                    bestObject = j;
+                } else if (value > second) {
+                    second = value;
+                }
+            }
+            if (bestObject < 0) {
+                continue; // every edge is now dearer than going without
+            }
+            price[bestObject] += best - second + epsilon;
+            int previous = owner[bestObject];
+            owner[bestObject] = i;
+            assignment[i] = bestObject;
+            if (previous >= 0) {
+                assignment[previous] = -1;
+                queue.add(previous);
+            }
+        }
+        return assignment;
+    }
+
+    // Out of time — give each waiting person their cheapest object nobody holds
+    private static void fillGreedily(ArrayDeque<Integer> queue, int[][] edges, double[][] costs,
+                                     int[] owner, int[] assignment, double unassignedCost) {
+        for (int i : queue) {
+            int bestObject = -1;
+            double bestCost = unassignedCost;
+            for (int e = 0; e < edges[i].length; e++) {
+                int j = edges[i][e];
+                if (owner[j] < 0 && costs[i][e] < bestCost) {
+                    bestCost = costs[i][e];
+                    bestObject = j;
+                }
+            }
+            if (bestObject >= 0) {
+                owner[bestObject] = i;
+                assignment[i] = bestObject;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.smartparking.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tiny helpers for running in-memory side effects in step with the DB transaction.
+ *
+ * In-memory structures (slot index, reservation calendar, caches) must never
+ * show state the DB has not committed yet, and must undo what a rolled-back
+ * transaction did.
+ *
+ * Rules:
+ *  - afterCommit outside a transaction runs the action now — there is nothing to wait for.
+ *  - onRollback outside a transaction throws. Without one, a later failure
+ *    could never trigger the undo, so the in-memory change would stick.
+ */
+public class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    /** Runs the action after the current transaction commits (or immediately if there is none). */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Runs the action only if the current transaction rolls back.
+     *
+     * @throws IllegalStateException if no transaction is active
+     */
+    public static void onRollback(Runnable action) {
+        requireTransaction();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * For callers that change memory first and register the undo after — check
+     * up front, so a missing transaction fails before anything has changed.
+     *
+     * @throws IllegalStateException if no transaction is active
+     */
+    public static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException(
+                    "This change needs an active transaction to undo it on rollback — call it from a @Transactional method");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.smartparking.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The GPS path of one valet trip, packed small enough to keep every live trip
+ * in memory and store each finished one as a single blob.
+ *
+ * Encoding — every number is a zig-zag varint (small values → 1-2 bytes):
+ *
+ *   version | startEpochSeconds | lat₀ | lon₀ | (dSeconds, dLat, dLon) per later point
+ *
+ * Coordinates are fixed-point 1e-5° (≈ 1.1 m) and stored as the difference to
+ * the previous point. A 5-second hop across town is 3-6 bytes, against 24 for
+ * three raw doubles.
+ *
+ * Rules:
+ *  - Moves shorter than minStepKm are dropped — GPS jitter while standing
+ *    still neither grows the buffer nor inflates the distance.
+ *  - A point that would need more than maxSpeedKmh to reach from the last
+ *    accepted one, or that is older than it, is a GPS glitch and is dropped.
+ *    The next good point is measured from the last good one, and a genuine
+ *    jump (tunnel, lost signal) is accepted once enough time has passed.
+ *  - distanceKm() is summed per accepted point, so reading it never walks the
+ *    buffer.
+ *  - Past maxBytes new points are no longer stored, but the distance keeps
+ *    counting. The bill stays right even if the drawn path gets cut short.
+ *
+ * Thread-safe; every method synchronizes on the trail.
+ */
+public class TripTrail {
+
+    private static final int VERSION = 1;
+    private static final double SCALE = 1e5;
+
+    private final double minStepKm;
+    private final double maxSpeedKmh;
+    private final int maxBytes;
+
+    private byte[] buffer = new byte[64];
+    private int length;
+    private int points;
+    private boolean truncated;
+    private double distanceKm;
+
+    // Last accepted point — raw for the distance, fixed-point for the deltas
+    private double lastLat;
+    private double lastLon;
+    private int lastLatE5;
+    private int lastLonE5;
+    private long lastSeconds;
+
+    public TripTrail(double minStepKm, double maxSpeedKmh, int maxBytes) {
+        this.minStepKm = minStepKm;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.maxBytes = maxBytes;
+    }
+
+    public record TrailPoint(double latitude, double longitude, long epochSeconds) {}
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Recording
+    // ─────────────────────────────────────────────────────────────────────
+
+    /** @return true if the point was far enough from the last one, and plausibly reached, to count */
+    public synchronized boolean append(double lat, double lon, long epochMillis) {
+        long seconds = epochMillis / 1000;
+        int latE5 = (int) Math.round(lat * SCALE);
+        int lonE5 = (int) Math.round(lon * SCALE);
+        if (points == 0) {
+            writeVarint(VERSION);
+            writeVarint(zigZag(seconds));
+            writeVarint(zigZag(latE5));
+            writeVarint(zigZag(lonE5));
+        } else {
+            double stepKm = GeoUtils.calculateDistanceKm(lastLat, lastLon, lat, lon);
+            if (stepKm < minStepKm) {
+                return false;
+            }
+            long elapsed = seconds - lastSeconds;
+            // Pings within the same second still get one second's worth of travel
+            if (elapsed < 0 || stepKm > maxSpeedKmh * Math.max(elapsed, 1) / 3600.0) {
+                return false;
+            }
+            distanceKm += stepKm;
+            if (!truncated && length + 3 * 10 > maxBytes) {
+                truncated = true; // 3 varints of up to 10 bytes might not fit any more
+            }
+            if (!truncated) {
+                writeVarint(zigZag(seconds - lastSeconds));
+                writeVarint(zigZag(latE5 - lastLatE5));
+                writeVarint(zigZag(lonE5 - lastLonE5));
+            }
+        }
+        points++;
+        lastLat = lat;
+        lastLon = lon;
+        lastLatE5 = latE5;
+        lastLonE5 = lonE5;
+        lastSeconds = seconds;
+        return true;
+    }
+
+    public synchronized double distanceKm() {
+        return distanceKm;
+    }
+
+    public synchronized int pointCount() {
+        return points;
+    }
+
+    public synchronized boolean isTruncated() {
+        return truncated;
+    }
+
+    /** A trimmed copy of the encoded trail — what gets persisted. */
+    public synchronized byte[] toBytes() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Reading a stored blob back
+    // ─────────────────────────────────────────────────────────────────────
+
+    public static List<TrailPoint> decode(byte[] blob) {
+        List<TrailPoint> out = new ArrayList<>();
+        if (blob == null || blob.length == 0) {
+            return out;
+        }
+        int[] pos = {0};
+        long version = readVarint(blob, pos);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown trip trail version: " + version);
+        }
+        long seconds = unZigZag(readVarint(blob, pos));
+        long latE5 = unZigZag(readVarint(blob, pos));
+        long lonE5 = unZigZag(readVarint(blob, pos));
+        out.add(new TrailPoint(latE5 / SCALE, lonE5 / SCALE, seconds));
+        while (pos[0] < blob.length) {
+            seconds += unZigZag(readVarint(blob, pos));
+            latE5 += unZigZag(readVarint(blob, pos));
+            lonE5 += unZigZag(readVarint(blob, pos));
+            out.add(new TrailPoint(latE5 / SCALE, lonE5 / SCALE, seconds));
+        }
+        return out;
+    }
+
+    // ─────────────────────────────────────────────────────────────────────
+    //  Varint internals
+    // ─────────────────────────────────────────────────────────────────────
+
+    // Small negative deltas become small unsigned numbers: 0, -1, 1, -2 → 0, 1, 2, 3
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private void writeVarint(long value) {
+        if (length + 10 > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + 10));
+        }
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private static long readVarint(byte[] blob, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= blob.length) {
+                throw new IllegalArgumentException("Truncated trip trail blob");
+            }
+            byte b = blob[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in trip trail blob");
+    }
+}
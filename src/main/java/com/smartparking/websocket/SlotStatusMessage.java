@@ -1,10 +1,14 @@
 package com.smartparking.websocket;
 
 import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.entities.parking.Slot;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -14,4 +18,15 @@ public class SlotStatusMessage {
     private Long parkingLotId;
     private SlotStatus status;
     private String updatedAt;
+
+    // Snapshot of the slot as it is now — safe to hand to another thread after the transaction ends
+    public static SlotStatusMessage of(Slot slot) {
+        return new SlotStatusMessage(
+                slot.getId(),
+                slot.getSlotNumber(),
+                slot.getParkingLot().getId(),
+                slot.getStatus(),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"))
+        );
+    }
 }
\ No newline at end of file
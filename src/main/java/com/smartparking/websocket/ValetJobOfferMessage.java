@@ -0,0 +1,23 @@
+package com.smartparking.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pushed to /topic/valet/{valetId}/offers when ValetDispatcher picks this valet
+ * for a job. The valet accepts with POST /api/valet/{requestId}/accept or passes
+ * with POST /api/valet/{requestId}/decline before expiresAt.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValetJobOfferMessage {
+    private Long   requestId;
+    private String customerName;
+    private double pickupLatitude;
+    private double pickupLongitude;
+    private double distanceKm;   // valet → pickup
+    private int    etaMinutes;
+    private long   expiresAt;    // epoch millis
+}
@@ -0,0 +1,22 @@
+package com.smartparking.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pushed to /topic/valet-jobs/region/{geohash} for a job the dispatcher could
+ * not place. Every valet subscribed to that region sees the same frame; the
+ * same requestId may arrive again from a wider ring — clients dedupe on it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValetJobRegionMessage {
+    private Long   requestId;
+    private String customerName;
+    private double pickupLatitude;
+    private double pickupLongitude;
+    private double radiusKm;     // ring this frame was published for
+    private long   postedAt;     // epoch millis
+}
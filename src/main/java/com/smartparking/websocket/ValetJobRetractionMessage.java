@@ -0,0 +1,20 @@
+package com.smartparking.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pushed once to /topic/valet-jobs when a job is taken. Every valet app drops
+ * the job's card locally — nothing is stored per valet.
+ *
+ * seq grows by one per retraction. A client that sees a gap knows it missed
+ * frames (e.g. after a reconnect) and reloads /api/valet/jobs/available.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValetJobRetractionMessage {
+    private Long requestId;
+    private long seq;
+}
@@ -0,0 +1,18 @@
+package com.smartparking.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sent by the valet app to /app/valet/location every few seconds. The valet is
+ * the authenticated user of the STOMP connection, so the id isn't in the frame.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValetLocationPing {
+    private double  latitude;
+    private double  longitude;
+    private boolean available;
+}
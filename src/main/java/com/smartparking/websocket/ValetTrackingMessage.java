@@ -0,0 +1,28 @@
+package com.smartparking.websocket;
+
+import com.smartparking.entities.nums.ValetStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pushed to /topic/valet-request/{requestId}/tracking while a valet job is live.
+ *
+ * type = LOCATION → the valet moved; latitude/longitude are set, and so are
+ *                   distanceKm/etaMinutes while the valet is heading to the customer.
+ * type = STATUS   → the job changed state (ACCEPTED, PICKED_UP, ...).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ValetTrackingMessage {
+    private Long        requestId;
+    private String      type;        // LOCATION | STATUS
+    private ValetStatus status;
+    private Long        valetId;
+    private Double      latitude;
+    private Double      longitude;
+    private Double      distanceKm;  // to the customer — null when the valet isn't heading there
+    private Integer     etaMinutes;
+    private long        timestamp;   // epoch millis — clients drop frames older than the last one shown
+}
@@ -0,0 +1,124 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.BookingCodeWatermark;
+import com.smartparking.repositories.BookingCodeWatermarkRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingCodeGeneratorTest {
+
+	private static final long EPOCH_SECONDS = Instant.parse("2025-01-01T00:00:00Z").getEpochSecond();
+
+	@Test
+	void codesAreUniqueAndWellFormed() {
+		BookingCodeGenerator generator = reserved(new BookingCodeGenerator(emptyRepository(), 3));
+		Set<String> seen = new HashSet<>();
+		// More than one second's worth of sequence, so the borrow path runs too
+		for (int i = 0; i < 40_000; i++) {
+			String code = generator.nextParkingCode();
+			assertTrue(code.matches("BK-[0-9A-HJKMNP-TV-Z]{14}"), code);
+			assertTrue(seen.add(code), "duplicate " + code);
+		}
+		assertTrue(generator.nextRentalCode().startsWith("CR-"));
+	}
+
+	@Test
+	void nodesNeverCollide() {
+		BookingCodeGenerator a = reserved(new BookingCodeGenerator(emptyRepository(), 0));
+		BookingCodeGenerator b = reserved(new BookingCodeGenerator(emptyRepository(), 1));
+		Set<String> seen = new HashSet<>();
+		for (int i = 0; i < 5_000; i++) {
+			assertTrue(seen.add(a.next().substring(0, 10)));
+			assertTrue(seen.add(b.next().substring(0, 10)));
+		}
+	}
+
+	@Test
+	void restartStartsAboveTheStoredMark() {
+		long now = Instant.now().getEpochSecond() - EPOCH_SECONDS;
+		// A previous run reserved an hour ahead — e.g. the clock was stepped back since
+		BookingCodeWatermarkRepository repository = repositoryWithMark(3, now + 3600);
+		BookingCodeGenerator generator = new BookingCodeGenerator(repository, 3);
+
+		generator.reserveAhead();
+
+		verify(repository).raiseTo(3, now + 3600 + 60);
+	}
+
+	@Test
+	void watermarkIsWrittenOncePerHalfBlock() {
+		BookingCodeWatermarkRepository repository = emptyRepository();
+		BookingCodeGenerator generator = reserved(new BookingCodeGenerator(repository, 0));
+		for (int i = 0; i < 1_000; i++) {
+			generator.next();
+			if (i % 100 == 0) {
+				generator.reserveAhead();
+			}
+		}
+		verify(repository, times(1)).raiseTo(eq(0), anyLong());
+	}
+
+	@Test
+	void nextNeverTouchesTheRepository() {
+		BookingCodeWatermarkRepository repository = emptyRepository();
+		BookingCodeGenerator generator = reserved(new BookingCodeGenerator(repository, 0));
+		clearInvocations(repository);
+
+		for (int i = 0; i < 1_000; i++) {
+			generator.next();
+		}
+
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void refusesToIssueWithoutAPersistedMark() {
+		BookingCodeWatermarkRepository repository = emptyRepository();
+		when(repository.raiseTo(anyInt(), anyLong())).thenThrow(new RuntimeException("DB down"));
+		BookingCodeGenerator generator = new BookingCodeGenerator(repository, 0);
+
+		assertThrows(RuntimeException.class, generator::next); // nothing reserved yet
+		generator.reserveAhead(); // the write fails — the block must not count as reserved
+		assertThrows(RuntimeException.class, generator::next);
+
+		reset(repository);
+		when(repository.findById(anyInt())).thenReturn(Optional.empty());
+		generator.reserveAhead();
+		assertNotNull(generator.next());
+	}
+
+	@Test
+	void rejectsNodeIdOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> new BookingCodeGenerator(emptyRepository(), 32));
+	}
+
+	private static BookingCodeGenerator reserved(BookingCodeGenerator generator) {
+		generator.reserveAhead();
+		return generator;
+	}
+
+	private static BookingCodeWatermarkRepository emptyRepository() {
+		BookingCodeWatermarkRepository repository = mock(BookingCodeWatermarkRepository.class);
+		when(repository.findById(anyInt())).thenReturn(Optional.empty());
+		return repository;
+	}
+
+	private static BookingCodeWatermarkRepository repositoryWithMark(int nodeId, long mark) {
+		BookingCodeWatermark watermark = new BookingCodeWatermark();
+		watermark.setNodeId(nodeId);
+		watermark.setReservedUntil(mark);
+		BookingCodeWatermarkRepository repository = mock(BookingCodeWatermarkRepository.class);
+		when(repository.findById(nodeId)).thenReturn(Optional.of(watermark));
+		return repository;
+	}
+}
@@ -0,0 +1,86 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.entities.nums.SlotType;
+import com.smartparking.entities.parking.Slot;
+import com.smartparking.repositories.BookingRepository;
+import com.smartparking.repositories.SlotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SlotClaimServiceTest {
+
+	private static final Long LOT_ID = 3L;
+
+	private SlotRepository slotRepository;
+	private SlotReservationCalendar calendar;
+	private SlotClaimService claimService;
+
+	@BeforeEach
+	void setUp() {
+		slotRepository = mock(SlotRepository.class);
+		calendar = new SlotReservationCalendar(mock(BookingRepository.class));
+		SlotAvailabilityIndex index = mock(SlotAvailabilityIndex.class); // not ready → warm-up path
+		claimService = new SlotClaimService(slotRepository, index, calendar, mock(EntityManager.class));
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void warmUpPagesPastSlotsPromisedToLaterBookings() {
+		LocalDateTime now = LocalDateTime.now();
+		// The whole first page is free now but reserved before we'd leave
+		List<Long> firstPage = LongStream.rangeClosed(1, 10).boxed().toList();
+		firstPage.forEach(id -> calendar.tryReserve(id, "LATER-" + id, now.plusMinutes(30), now.plusHours(2)));
+		when(slotRepository.lockAvailableSlotIdsAfter(eq(LOT_ID), eq("REGULAR"), eq(0L), anyInt()))
+				.thenReturn(firstPage);
+		when(slotRepository.lockAvailableSlotIdsAfter(eq(LOT_ID), eq("REGULAR"), eq(10L), anyInt()))
+				.thenReturn(List.of(11L, 12L));
+		when(slotRepository.compareAndSetStatus(11L, SlotStatus.AVAILABLE, SlotStatus.OCCUPIED)).thenReturn(1);
+		when(slotRepository.findById(11L)).thenReturn(Optional.of(occupied(11L)));
+
+		Slot slot = claimService.claimAny(LOT_ID, SlotType.REGULAR, "BK-NOW", now.plusHours(3));
+
+		assertEquals(11L, slot.getId());
+		assertFalse(calendar.isFree(11L, now, now.plusHours(3)));
+	}
+
+	@Test
+	void warmUpReportsFullOnlyWhenNoPagesAreLeft() {
+		LocalDateTime now = LocalDateTime.now();
+		calendar.tryReserve(1L, "LATER", now.plusMinutes(30), now.plusHours(2));
+		when(slotRepository.lockAvailableSlotIdsAfter(eq(LOT_ID), eq("REGULAR"), eq(0L), anyInt()))
+				.thenReturn(List.of(1L));
+		when(slotRepository.lockAvailableSlotIdsAfter(eq(LOT_ID), eq("REGULAR"), eq(1L), anyInt()))
+				.thenReturn(List.of());
+
+		assertThrows(RuntimeException.class,
+				() -> claimService.claimAny(LOT_ID, SlotType.REGULAR, "BK-NOW", now.plusHours(3)));
+		verify(slotRepository, never()).compareAndSetStatus(anyLong(), any(), any());
+	}
+
+	private static Slot occupied(Long id) {
+		Slot slot = new Slot();
+		slot.setId(id);
+		slot.setStatus(SlotStatus.OCCUPIED);
+		return slot;
+	}
+}
@@ -0,0 +1,164 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.entities.nums.SlotType;
+import com.smartparking.entities.parking.Slot;
+import com.smartparking.repositories.BookingRepository;
+import com.smartparking.repositories.SlotRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Many threads booking the same lot at once, against a repository stub whose
+ * compareAndSetStatus is an atomic per-slot CAS — the same guarantee the
+ * conditional UPDATE gives in MySQL. Every slot must be won at most once, and
+ * every slot that really is free must be won by someone.
+ */
+class SlotClaimStressTest {
+
+	private static final Long LOT_ID = 1L;
+	private static final int SLOTS = 2_000;
+	private static final int THREADS = 16;
+
+	// Slot id → status, standing in for the slots table
+	private final ConcurrentSkipListMap<Long, SlotStatus> table = new ConcurrentSkipListMap<>();
+	private SlotRepository slotRepository;
+	private SlotAvailabilityIndex index;
+	private SlotClaimService claimService;
+
+	@BeforeEach
+	void setUp() {
+		slotRepository = mock(SlotRepository.class);
+		for (long id = 1; id <= SLOTS; id++) {
+			table.put(id, SlotStatus.AVAILABLE);
+		}
+		when(slotRepository.compareAndSetStatus(anyLong(), any(), any())).thenAnswer(call ->
+				table.replace(call.getArgument(0), call.getArgument(1), call.getArgument(2)) ? 1 : 0);
+		when(slotRepository.findById(anyLong())).thenAnswer(call -> {
+			Slot slot = new Slot();
+			slot.setId(call.getArgument(0));
+			slot.setStatus(table.get(slot.getId()));
+			return Optional.of(slot);
+		});
+		// No real SKIP LOCKED here — concurrent claimers see overlapping pages, so the CAS has to decide
+		when(slotRepository.lockAvailableSlotIdsAfter(eq(LOT_ID), anyString(), anyLong(), anyInt())).thenAnswer(call -> {
+			long afterId = call.getArgument(2);
+			int limit = call.getArgument(3);
+			return table.tailMap(afterId, false).entrySet().stream()
+					.filter(e -> e.getValue() == SlotStatus.AVAILABLE)
+					.limit(limit)
+					.map(Map.Entry::getKey)
+					.toList();
+		});
+
+		index = new SlotAvailabilityIndex(slotRepository, mock(ParkingLotSpatialIndex.class));
+		SlotReservationCalendar calendar = new SlotReservationCalendar(mock(BookingRepository.class));
+		claimService = new SlotClaimService(slotRepository, index, calendar, mock(EntityManager.class));
+	}
+
+	@Test
+	void indexPathNeverDoubleAllocates() throws Exception {
+		List<Object[]> rows = new ArrayList<>();
+		table.keySet().forEach(id -> rows.add(new Object[]{id, LOT_ID, SlotType.REGULAR}));
+		when(slotRepository.findSlotKeysByStatus(SlotStatus.AVAILABLE)).thenReturn(rows);
+		index.reconcile();
+		// Every 10th slot was taken outside the services — the index still lists it, the CAS must refuse it
+		for (long id = 10; id <= SLOTS; id += 10) {
+			table.put(id, SlotStatus.OCCUPIED);
+		}
+
+		Map<Long, String> winners = stress("index");
+		assertEquals(SLOTS - SLOTS / 10, winners.size());
+	}
+
+	@Test
+	void warmUpPathNeverDoubleAllocates() throws Exception {
+		assertFalse(index.isReady());
+
+		Map<Long, String> winners = stress("warm-up");
+		assertEquals(SLOTS, winners.size());
+	}
+
+	// Each thread books until the lot reports full; returns slot id → the one booking that won it
+	private Map<Long, String> stress(String path) throws Exception {
+		Map<Long, String> winners = new ConcurrentHashMap<>();
+		AtomicInteger sequence = new AtomicInteger();
+		LocalDateTime until = LocalDateTime.now().plusHours(2);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> workers = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			workers.add(pool.submit(() -> {
+				start.await();
+				while (true) {
+					String bookingCode = "BK-" + sequence.incrementAndGet();
+					Slot slot = inTransaction(() -> claimService.claimAny(LOT_ID, SlotType.REGULAR, bookingCode, until));
+					if (slot == null) {
+						return null; // lot is full
+					}
+					String previous = winners.putIfAbsent(slot.getId(), bookingCode);
+					assertNull(previous, "slot " + slot.getId() + " won by " + previous + " and " + bookingCode);
+				}
+			}));
+		}
+		long started = System.nanoTime();
+		start.countDown();
+		for (Future<?> worker : workers) {
+			worker.get(60, TimeUnit.SECONDS); // rethrows a failed assertion from the worker
+		}
+		double seconds = (System.nanoTime() - started) / 1e9;
+		pool.shutdown();
+
+		System.out.printf("[SlotClaimStress] %s path: %d claims by %d threads in %.3f s — %.0f claims/s%n",
+				path, winners.size(), THREADS, seconds, winners.size() / seconds);
+		assertTrue(table.values().stream().noneMatch(s -> s == SlotStatus.AVAILABLE), "a free slot was left unclaimed");
+		return winners;
+	}
+
+	// Runs the claim like a @Transactional call: commit hooks on success, rollback hooks on failure
+	private static Slot inTransaction(Supplier<Slot> claim) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			Slot slot = claim.get();
+			List<TransactionSynchronization> hooks = TransactionSynchronizationManager.getSynchronizations();
+			hooks.forEach(TransactionSynchronization::afterCommit);
+			hooks.forEach(h -> h.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+			return slot;
+		} catch (RuntimeException e) {
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(h -> h.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+			if (e.getMessage() == null || !e.getMessage().contains("completely full")) {
+				throw e;
+			}
+			return null;
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.smartparking.OtherServices;
+
+import com.smartparking.repositories.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SlotReservationCalendarTest {
+
+	private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+	private SlotReservationCalendar calendar;
+
+	@BeforeEach
+	void setUp() {
+		calendar = new SlotReservationCalendar(mock(BookingRepository.class));
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void backToBackWindowsDoNotClash() {
+		assertTrue(calendar.tryReserve(1L, "A", T0, T0.plusHours(2)));
+		assertTrue(calendar.tryReserve(1L, "B", T0.plusHours(2), T0.plusHours(3)));
+		assertTrue(calendar.tryReserve(1L, "C", T0.minusHours(1), T0));
+		assertFalse(calendar.tryReserve(1L, "D", T0.plusMinutes(30), T0.plusMinutes(45)));
+		assertFalse(calendar.tryReserve(1L, "E", T0.minusHours(2), T0.plusHours(5)));
+		// Other slots are independent
+		assertTrue(calendar.tryReserve(2L, "F", T0, T0.plusHours(5)));
+	}
+
+	@Test
+	void overlapCheckMatchesBruteForce() {
+		Random random = new Random(42);
+		List<LocalDateTime[]> held = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) {
+			LocalDateTime start = T0.plusMinutes(random.nextInt(10_000));
+			LocalDateTime end = start.plusMinutes(1 + random.nextInt(240));
+			boolean expected = held.stream().noneMatch(w -> w[0].isBefore(end) && start.isBefore(w[1]));
+
+			assertEquals(expected, calendar.isFree(7L, start, end));
+			assertEquals(expected, calendar.tryReserve(7L, "B" + i, start, end));
+			if (expected) {
+				held.add(new LocalDateTime[]{start, end});
+			}
+		}
+	}
+
+	@Test
+	void rollbackRemovesTheReservation() {
+		assertTrue(calendar.tryReserve(1L, "A", T0, T0.plusHours(1)));
+
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertTrue(calendar.isFree(1L, T0, T0.plusHours(1)));
+	}
+
+	@Test
+	void releaseTakesEffectOnCommit() {
+		assertTrue(calendar.tryReserve(1L, "A", T0, T0.plusHours(1)));
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		TransactionSynchronizationManager.initSynchronization();
+		calendar.release(1L, "A");
+		assertFalse(calendar.isFree(1L, T0, T0.plusHours(1)));
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertTrue(calendar.isFree(1L, T0, T0.plusHours(1)));
+	}
+
+	@Test
+	void reserveAnyTakesTheFirstFreeSlot() {
+		assertTrue(calendar.tryReserve(1L, "A", T0, T0.plusHours(1)));
+
+		assertEquals(Optional.of(2L), calendar.reserveAny(List.of(1L, 2L, 3L), "B", T0, T0.plusHours(1)));
+		assertEquals(Optional.empty(), calendar.reserveAny(List.of(1L, 2L), "C", T0, T0.plusHours(1)));
+	}
+
+	@Test
+	void reservingOutsideATransactionFailsFast() {
+		TransactionSynchronizationManager.clearSynchronization();
+
+		assertThrows(IllegalStateException.class, () -> calendar.tryReserve(1L, "A", T0, T0.plusHours(1)));
+		assertTrue(calendar.isFree(1L, T0, T0.plusHours(1)));
+	}
+
+	@Test
+	void rejectsEmptyWindow() {
+		assertThrows(IllegalArgumentException.class, () -> calendar.tryReserve(1L, "A", T0, T0));
+	}
+
+	// Ends the simulated transaction the way Spring does: afterCommit, then afterCompletion
+	private static void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		for (TransactionSynchronization s : synchronizations) {
+			if (status == TransactionSynchronization.STATUS_COMMITTED) {
+				s.afterCommit();
+			}
+			s.afterCompletion(status);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.smartparking.service.Impl;
+
+import com.smartparking.OtherServices.SlotAvailabilityIndex;
+import com.smartparking.OtherServices.SlotReservationCalendar;
+import com.smartparking.dtos.response.BookingResponseDTO;
+import com.smartparking.entities.Booking;
+import com.smartparking.entities.admins.ParkingLotAdmin;
+import com.smartparking.entities.nums.BookingStatus;
+import com.smartparking.entities.nums.SlotStatus;
+import com.smartparking.entities.parking.ParkingLot;
+import com.smartparking.entities.parking.Slot;
+import com.smartparking.entities.users.Customer;
+import com.smartparking.events.BookingLifecycleEvent;
+import com.smartparking.repositories.BookingRepository;
+import com.smartparking.repositories.SlotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingServiceImplTest {
+
+	@Mock private BookingRepository bookingRepository;
+	@Mock private SlotRepository slotRepository;
+	@Mock private SlotAvailabilityIndex slotAvailabilityIndex;
+	@Mock private SlotReservationCalendar reservationCalendar;
+	@Mock private ApplicationEventPublisher eventPublisher;
+
+	@InjectMocks
+	private BookingServiceImpl bookingService;
+
+	private Slot slot;
+	private Booking booking;
+
+	@BeforeEach
+	void setUp() {
+		ParkingLotAdmin admin = new ParkingLotAdmin();
+		admin.setId(7L);
+		ParkingLot lot = new ParkingLot();
+		lot.setId(3L);
+		lot.setName("Central");
+		lot.setParkingLotAdmin(admin);
+		Customer customer = new Customer();
+		customer.setId(5L);
+		customer.setName("Asha");
+
+		slot = new Slot();
+		slot.setId(11L);
+		slot.setSlotNumber("A-1");
+		slot.setParkingLot(lot);
+		slot.setHourlyRate(40);
+		slot.setStatus(SlotStatus.OCCUPIED);
+
+		booking = new Booking();
+		booking.setId(100L);
+		booking.setBookingCode("BK-TEST");
+		booking.setCustomer(customer);
+		booking.setParkingLot(lot);
+		booking.setSlot(slot);
+		booking.setEntryTime(LocalDateTime.now().minusHours(2));
+		booking.setStatus(BookingStatus.ACTIVE);
+
+		when(bookingRepository.save(any(Booking.class))).thenAnswer(call -> call.getArgument(0));
+	}
+
+	@Test
+	void checkoutFreesTheSlotItHolds() {
+		when(bookingRepository.findByBookingCode("BK-TEST")).thenReturn(Optional.of(booking));
+
+		BookingResponseDTO response = bookingService.checkoutBooking("BK-TEST");
+
+		assertEquals(BookingStatus.COMPLETED, response.getStatus());
+		assertEquals(SlotStatus.AVAILABLE, slot.getStatus());
+		verify(slotRepository).save(slot);
+		verify(slotAvailabilityIndex).markAvailable(slot);
+		assertNotNull(publishedEvent().slotUpdate());
+	}
+
+	@Test
+	void checkoutCompletesWhenAnAdminAlreadyFreedTheSlot() {
+		slot.setStatus(SlotStatus.AVAILABLE);
+		when(bookingRepository.findByBookingCode("BK-TEST")).thenReturn(Optional.of(booking));
+
+		BookingResponseDTO response = bookingService.checkoutBooking("BK-TEST");
+
+		assertEquals(BookingStatus.COMPLETED, response.getStatus());
+		assertEquals(SlotStatus.AVAILABLE, slot.getStatus());
+		verifyNoInteractions(slotRepository, slotAvailabilityIndex);
+		verify(reservationCalendar).release(11L, "BK-TEST");
+		assertNull(publishedEvent().slotUpdate());
+	}
+
+	@Test
+	void checkoutLeavesASlotAnotherBookingNowHolds() {
+		when(bookingRepository.findByBookingCode("BK-TEST")).thenReturn(Optional.of(booking));
+		when(bookingRepository.isSlotHeldByAnother(11L, 100L)).thenReturn(true);
+
+		BookingResponseDTO response = bookingService.checkoutBooking("BK-TEST");
+
+		assertEquals(BookingStatus.COMPLETED, response.getStatus());
+		assertEquals(SlotStatus.OCCUPIED, slot.getStatus());
+		verifyNoInteractions(slotRepository, slotAvailabilityIndex);
+	}
+
+	@Test
+	void cancelSucceedsWhenAnAdminAlreadyFreedTheSlot() {
+		slot.setStatus(SlotStatus.AVAILABLE);
+		when(bookingRepository.findById(100L)).thenReturn(Optional.of(booking));
+
+		BookingResponseDTO response = bookingService.cancelBooking(100L);
+
+		assertEquals(BookingStatus.CANCELLED, response.getStatus());
+		verifyNoInteractions(slotRepository, slotAvailabilityIndex);
+		verify(reservationCalendar).release(11L, "BK-TEST");
+		assertNull(publishedEvent().slotUpdate());
+	}
+
+	private BookingLifecycleEvent publishedEvent() {
+		ArgumentCaptor<BookingLifecycleEvent> event = ArgumentCaptor.forClass(BookingLifecycleEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		return event.getValue();
+	}
+}
@@ -0,0 +1,130 @@
+package com.smartparking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoGridIndexTest {
+
+	private static final double CELL_DEG = 0.05;
+
+	@Test
+	void nearestMatchesBruteForce() {
+		Random random = new Random(11);
+		GeoGridIndex<Integer> index = new GeoGridIndex<>(CELL_DEG);
+		List<double[]> points = scatter(index, random, 18.52, 73.85, 0.5, 3_000);
+
+		for (int q = 0; q < 300; q++) {
+			double lat = 18.52 + (random.nextDouble() - 0.5);
+			double lon = 73.85 + (random.nextDouble() - 0.5);
+			int k = 1 + random.nextInt(10);
+			double maxKm = 1 + random.nextDouble() * 30;
+			Predicate<Integer> filter = v -> v % 3 != 0;
+
+			List<GeoGridIndex.Hit<Integer>> hits = index.nearest(lat, lon, k, maxKm, filter);
+			assertSameDistances(bruteForce(points, lat, lon, maxKm, filter), hits, k);
+			assertTrue(hits.stream().allMatch(h -> filter.test(h.value())));
+		}
+	}
+
+	@Test
+	void withinRadiusMatchesBruteForce() {
+		Random random = new Random(12);
+		GeoGridIndex<Integer> index = new GeoGridIndex<>(CELL_DEG);
+		List<double[]> points = scatter(index, random, 18.52, 73.85, 0.5, 3_000);
+
+		for (int q = 0; q < 300; q++) {
+			double lat = 18.52 + (random.nextDouble() - 0.5);
+			double lon = 73.85 + (random.nextDouble() - 0.5);
+			double radiusKm = random.nextDouble() * 15;
+
+			assertSameDistances(bruteForce(points, lat, lon, radiusKm, v -> true),
+					index.withinRadius(lat, lon, radiusKm), Integer.MAX_VALUE);
+		}
+	}
+
+	@Test
+	void nearestWorksAtHighLatitudeAndAcrossTheAntimeridian() {
+		Random random = new Random(13);
+		GeoGridIndex<Integer> north = new GeoGridIndex<>(CELL_DEG);
+		List<double[]> northPoints = scatter(north, random, 69.65, 18.95, 0.5, 2_000);
+		GeoGridIndex<Integer> dateLine = new GeoGridIndex<>(CELL_DEG);
+		List<double[]> dateLinePoints = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			double lat = -17 + (random.nextDouble() - 0.5);
+			// Half just west of the antimeridian, half just east of it
+			double lon = random.nextBoolean()
+					? 180 - random.nextDouble() * 0.5
+					: -180 + random.nextDouble() * 0.5;
+			dateLine.put(i, lat, lon, i);
+			dateLinePoints.add(new double[]{lat, lon, i});
+		}
+
+		for (int q = 0; q < 100; q++) {
+			double lat = 69.65 + (random.nextDouble() - 0.5) * 0.8;
+			double lon = 18.95 + (random.nextDouble() - 0.5) * 0.8;
+			assertSameDistances(bruteForce(northPoints, lat, lon, 25, v -> true),
+					north.nearest(lat, lon, 5, 25, v -> true), 5);
+
+			double dlLat = -17 + (random.nextDouble() - 0.5) * 0.8;
+			double dlLon = random.nextBoolean() ? 179.99 : -179.99;
+			assertSameDistances(bruteForce(dateLinePoints, dlLat, dlLon, 25, v -> true),
+					dateLine.nearest(dlLat, dlLon, 5, 25, v -> true), 5);
+		}
+	}
+
+	@Test
+	void putMovesAndRemoveDrops() {
+		GeoGridIndex<String> index = new GeoGridIndex<>(CELL_DEG);
+		index.put(1, 18.52, 73.85, "a");
+		index.put(1, 19.07, 72.88, "a"); // moved to another city
+		assertEquals(1, index.size());
+		assertTrue(index.nearest(18.52, 73.85, 1, 20, v -> true).isEmpty());
+		assertEquals(1, index.nearest(19.07, 72.88, 1, 20, v -> true).size());
+
+		index.remove(1);
+		assertEquals(0, index.size());
+		assertNull(index.get(1));
+		assertTrue(index.nearest(19.07, 72.88, 1, 20, v -> true).isEmpty());
+	}
+
+	// ─────────────────────────────────────────────────────────────────────
+	//  Helpers
+	// ─────────────────────────────────────────────────────────────────────
+
+	private static List<double[]> scatter(GeoGridIndex<Integer> index, Random random,
+										  double lat, double lon, double spreadDeg, int count) {
+		List<double[]> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			double pLat = lat + (random.nextDouble() - 0.5) * spreadDeg * 2;
+			double pLon = lon + (random.nextDouble() - 0.5) * spreadDeg * 2;
+			index.put(i, pLat, pLon, i);
+			points.add(new double[]{pLat, pLon, i});
+		}
+		return points;
+	}
+
+	// The k nearest brute-force distances, in order — compared with a tolerance, the index's distance kernel rounds differently
+	private static void assertSameDistances(List<Double> expected, List<? extends GeoGridIndex.Hit<?>> hits, int k) {
+		assertEquals(Math.min(k, expected.size()), hits.size());
+		for (int i = 0; i < hits.size(); i++) {
+			assertEquals(expected.get(i), hits.get(i).distanceKm(), 1e-9);
+		}
+	}
+
+	private static List<Double> bruteForce(List<double[]> points, double lat, double lon,
+										   double maxKm, Predicate<Integer> filter) {
+		return points.stream()
+				.filter(p -> filter.test((int) p[2]))
+				.map(p -> GeoUtils.calculateDistanceKm(lat, lon, p[0], p[1]))
+				.filter(d -> d <= maxKm)
+				.sorted(Comparator.naturalOrder())
+				.toList();
+	}
+}
@@ -0,0 +1,99 @@
+package com.smartparking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoUtilsTest {
+
+	@Test
+	void distanceMatchesKnownRoute() {
+		// Pune Railway Station → Pune Airport
+		assertEquals(6.7, GeoUtils.calculateDistanceKm(18.5285, 73.8740, 18.5793, 73.9089), 0.2);
+		assertEquals(0, GeoUtils.calculateDistanceKm(18.5, 73.8, 18.5, 73.8), 1e-12);
+	}
+
+	@Test
+	void originAgreesWithCalculateDistanceKm() {
+		Random random = new Random(11);
+		for (int i = 0; i < 10_000; i++) {
+			double lat = random.nextDouble() * 170 - 85;
+			double lon = random.nextDouble() * 360 - 180;
+			double lat2 = clampLat(lat + (random.nextDouble() - 0.5) * 2);
+			double lon2 = lon + (random.nextDouble() - 0.5) * 2;
+			double expected = GeoUtils.calculateDistanceKm(lat, lon, lat2, lon2);
+
+			GeoUtils.Origin origin = new GeoUtils.Origin(lat, lon);
+			assertEquals(expected, origin.distanceKm(lat2, lon2), 1e-6);
+
+			double radiusKm = random.nextDouble() * 150;
+			// Skip points a hair from the edge, where rounding may go either way
+			if (Math.abs(expected - radiusKm) > 1e-6) {
+				boolean inside = expected <= radiusKm;
+				assertEquals(inside, origin.isWithin(lat2, lon2, GeoUtils.haversineThreshold(radiusKm)));
+				assertEquals(inside, GeoUtils.isWithinRadius(lat, lon, lat2, lon2, radiusKm));
+			}
+		}
+	}
+
+	@Test
+	void boundingBoxContainsEveryPointInRadius() {
+		Random random = new Random(3);
+		for (int i = 0; i < 5_000; i++) {
+			double lat = random.nextDouble() * 160 - 80;
+			double lon = random.nextDouble() * 300 - 150;
+			double radiusKm = 1 + random.nextDouble() * 50;
+			GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lon, radiusKm);
+			double[] p = pointWithin(random, lat, lon, radiusKm);
+			assertTrue(p[0] >= box.minLat() && p[0] <= box.maxLat());
+			assertTrue(p[1] >= box.minLon() && p[1] <= box.maxLon());
+		}
+	}
+
+	@Test
+	void geohashMatchesReferenceAndRoundTrips() {
+		assertEquals("u4pruydqqvj", GeoUtils.geohash(57.64911, 10.40744, 11));
+
+		double[] center = GeoUtils.geohashCenter("u4pruydqqvj");
+		assertEquals(57.64911, center[0], 1e-5);
+		assertEquals(10.40744, center[1], 1e-5);
+		assertEquals("u4pru", GeoUtils.geohash(center[0], center[1], 5));
+		assertThrows(IllegalArgumentException.class, () -> GeoUtils.geohashCenter("u4pa"));
+	}
+
+	@Test
+	void geohashesCoveringMissesNoPointInRadius() {
+		Random random = new Random(7);
+		double[][] centers = {{18.52, 73.85}, {51.5, -0.12}, {-33.87, 151.21}, {0.0, 179.99}, {64.1, -21.9}};
+		for (double[] c : centers) {
+			for (double radiusKm : new double[]{1, 3, 8, 20}) {
+				Set<String> cells = GeoUtils.geohashesCovering(c[0], c[1], radiusKm, 5);
+				for (int i = 0; i < 2_000; i++) {
+					double[] p = pointWithin(random, c[0], c[1], radiusKm);
+					double lon = ((p[1] + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+					assertTrue(cells.contains(GeoUtils.geohash(p[0], lon, 5)),
+							"missed " + p[0] + "," + lon + " around " + c[0] + "," + c[1] + " r=" + radiusKm);
+				}
+			}
+		}
+	}
+
+	// Random point at most radiusKm from the centre, found by rejection inside the bounding box
+	private static double[] pointWithin(Random random, double lat, double lon, double radiusKm) {
+		GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lon, radiusKm);
+		while (true) {
+			double pLat = box.minLat() + random.nextDouble() * (box.maxLat() - box.minLat());
+			double pLon = box.minLon() + random.nextDouble() * (box.maxLon() - box.minLon());
+			if (GeoUtils.calculateDistanceKm(lat, lon, pLat, pLon) <= radiusKm) {
+				return new double[]{pLat, pLon};
+			}
+		}
+	}
+
+	private static double clampLat(double lat) {
+		return Math.max(-90, Math.min(90, lat));
+	}
+}
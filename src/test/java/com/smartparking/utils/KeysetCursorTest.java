@@ -0,0 +1,42 @@
+package com.smartparking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+	@Test
+	void decodesWhatWasEncoded() {
+		KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000), 4242L);
+		assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void roundTripsWholeSecondsAndLargeIds() {
+		// LocalDateTime drops ":00" seconds from toString — the parse must still accept it
+		KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2026, 1, 1, 0, 0), Long.MAX_VALUE);
+		assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void encodingIsUrlSafe() {
+		for (long id = 0; id < 500; id++) {
+			String encoded = new KeysetCursor(LocalDateTime.of(2026, 5, 1, 12, 0).plusSeconds(id * 37), id).encode();
+			assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+		}
+	}
+
+	@Test
+	void rejectsGarbage() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor!"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(""));
+		String noSeparator = Base64.getUrlEncoder().withoutPadding().encodeToString("2026-01-01T00:00".getBytes());
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(noSeparator));
+		String badId = Base64.getUrlEncoder().withoutPadding().encodeToString("2026-01-01T00:00|abc".getBytes());
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(badId));
+	}
+}
@@ -0,0 +1,123 @@
+package com.smartparking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseAuctionTest {
+
+	private static final double UNASSIGNED_COST = 20;
+	private static final double EPSILON = 0.01;
+
+	@Test
+	void staysWithinEpsilonOfBruteForceOptimum() {
+		Random random = new Random(21);
+		for (int t = 0; t < 2_000; t++) {
+			int persons = 1 + random.nextInt(7);
+			int objects = 1 + random.nextInt(7);
+			int[][] edges = new int[persons][];
+			double[][] costs = new double[persons][];
+			randomGraph(random, persons, objects, edges, costs);
+
+			int[] assignment = SparseAuction.solve(edges, costs, objects, UNASSIGNED_COST, EPSILON, Long.MAX_VALUE);
+			double optimum = bruteForce(edges, costs, 0, new boolean[objects], 0, Double.MAX_VALUE);
+			assertTrue(totalCost(edges, costs, objects, assignment) <= optimum + persons * EPSILON + 1e-9,
+					"trial " + t);
+		}
+	}
+
+	@Test
+	void neverUsesAnEdgeDearerThanStayingUnassigned() {
+		int[][] edges = {{0}, {0, 1}};
+		double[][] costs = {{UNASSIGNED_COST + 5}, {3, UNASSIGNED_COST + 1}};
+		int[] assignment = SparseAuction.solve(edges, costs, 2, UNASSIGNED_COST, EPSILON, Long.MAX_VALUE);
+		assertArrayEquals(new int[]{-1, 0}, assignment);
+	}
+
+	@Test
+	void expiredDeadlineStillReturnsAValidMatching() {
+		Random random = new Random(22);
+		int persons = 1_000;
+		int objects = 1_000;
+		int[][] edges = new int[persons][];
+		double[][] costs = new double[persons][];
+		randomGraph(random, persons, objects, edges, costs);
+
+		int[] assignment = SparseAuction.solve(edges, costs, objects, UNASSIGNED_COST, EPSILON, System.nanoTime());
+		totalCost(edges, costs, objects, assignment);
+	}
+
+	@Test
+	void rejectsNonPositiveEpsilon() {
+		assertThrows(IllegalArgumentException.class,
+				() -> SparseAuction.solve(new int[][]{{0}}, new double[][]{{1}}, 1, UNASSIGNED_COST, 0, Long.MAX_VALUE));
+	}
+
+	// ─────────────────────────────────────────────────────────────────────
+	//  Helpers
+	// ─────────────────────────────────────────────────────────────────────
+
+	private static void randomGraph(Random random, int persons, int objects, int[][] edges, double[][] costs) {
+		for (int i = 0; i < persons; i++) {
+			List<Integer> reachable = new ArrayList<>();
+			for (int j = 0; j < objects; j++) {
+				if (random.nextDouble() < (objects > 10 ? 8.0 / objects : 0.6)) {
+					reachable.add(j);
+				}
+			}
+			edges[i] = reachable.stream().mapToInt(Integer::intValue).toArray();
+			costs[i] = new double[edges[i].length];
+			for (int e = 0; e < costs[i].length; e++) {
+				costs[i][e] = random.nextDouble() * 25; // some edges cost more than leaving the person out
+			}
+		}
+	}
+
+	// Asserts the assignment is one-to-one over listed edges, and returns its cost
+	private static double totalCost(int[][] edges, double[][] costs, int objects, int[] assignment) {
+		Set<Integer> taken = new HashSet<>();
+		double total = 0;
+		for (int i = 0; i < assignment.length; i++) {
+			if (assignment[i] < 0) {
+				total += UNASSIGNED_COST;
+				continue;
+			}
+			assertTrue(assignment[i] < objects);
+			assertTrue(taken.add(assignment[i]), "object " + assignment[i] + " assigned twice");
+			int edge = -1;
+			for (int e = 0; e < edges[i].length; e++) {
+				if (edges[i][e] == assignment[i]) {
+					edge = e;
+				}
+			}
+			assertTrue(edge >= 0, "person " + i + " assigned without an edge");
+			total += costs[i][edge];
+		}
+		return total;
+	}
+
+	private static double bruteForce(int[][] edges, double[][] costs, int i, boolean[] used, double sofar, double best) {
+		if (sofar >= best) {
+			return best;
+		}
+		if (i == edges.length) {
+			return sofar;
+		}
+		best = bruteForce(edges, costs, i + 1, used, sofar + UNASSIGNED_COST, best);
+		for (int e = 0; e < edges[i].length; e++) {
+			int j = edges[i][e];
+			if (!used[j]) {
+				used[j] = true;
+				best = bruteForce(edges, costs, i + 1, used, sofar + costs[i][e], best);
+				used[j] = false;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,98 @@
+package com.smartparking.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripTrailTest {
+
+	private static final double MIN_STEP_KM = 0.01;
+	private static final double MAX_SPEED_KMH = 150;
+	private static final long START_MILLIS = 1_760_000_000_000L;
+
+	@Test
+	void decodesWhatWasAppended() {
+		TripTrail trail = new TripTrail(MIN_STEP_KM, MAX_SPEED_KMH, 16_384);
+		Random random = new Random(5);
+		double lat = 18.52, lon = 73.85;
+		long millis = START_MILLIS;
+		List<double[]> accepted = new ArrayList<>();
+		for (int i = 0; i < 2_000; i++) {
+			lat += (random.nextDouble() - 0.45) * 0.0006;
+			lon += (random.nextDouble() - 0.45) * 0.0006;
+			millis += 5_000;
+			if (trail.append(lat, lon, millis)) {
+				accepted.add(new double[]{lat, lon, millis / 1000});
+			}
+		}
+
+		List<TripTrail.TrailPoint> decoded = TripTrail.decode(trail.toBytes());
+
+		assertFalse(trail.isTruncated());
+		assertEquals(accepted.size(), trail.pointCount());
+		assertEquals(accepted.size(), decoded.size());
+		double expectedKm = 0;
+		for (int i = 0; i < decoded.size(); i++) {
+			assertEquals(accepted.get(i)[0], decoded.get(i).latitude(), 1e-5);
+			assertEquals(accepted.get(i)[1], decoded.get(i).longitude(), 1e-5);
+			assertEquals((long) accepted.get(i)[2], decoded.get(i).epochSeconds());
+			if (i > 0) {
+				expectedKm += GeoUtils.calculateDistanceKm(accepted.get(i - 1)[0], accepted.get(i - 1)[1],
+						accepted.get(i)[0], accepted.get(i)[1]);
+			}
+		}
+		assertEquals(expectedKm, trail.distanceKm(), 1e-9);
+		// Delta + varint packing: a handful of bytes per point, not 24
+		assertTrue(trail.toBytes().length < decoded.size() * 6);
+	}
+
+	@Test
+	void dropsJitterBelowMinimumStep() {
+		TripTrail trail = new TripTrail(MIN_STEP_KM, MAX_SPEED_KMH, 16_384);
+		assertTrue(trail.append(18.52, 73.85, START_MILLIS));
+		assertFalse(trail.append(18.52003, 73.85, START_MILLIS + 5_000)); // ~3 m
+		assertEquals(1, trail.pointCount());
+		assertEquals(0, trail.distanceKm());
+	}
+
+	@Test
+	void dropsImpossibleJumpsButAcceptsThemOnceTimeAllows() {
+		TripTrail trail = new TripTrail(MIN_STEP_KM, MAX_SPEED_KMH, 16_384);
+		assertTrue(trail.append(18.52, 73.85, START_MILLIS));
+		// ~11 km in 5 s is a glitch
+		assertFalse(trail.append(18.62, 73.85, START_MILLIS + 5_000));
+		// Back near the real position — measured from the last good point
+		assertTrue(trail.append(18.5205, 73.85, START_MILLIS + 10_000));
+		// The same 11 km after 10 minutes is a real drive
+		assertTrue(trail.append(18.62, 73.85, START_MILLIS + 610_000));
+		// A ping older than the last accepted one is dropped
+		assertFalse(trail.append(18.6205, 73.85, START_MILLIS + 600_000));
+
+		assertEquals(3, trail.pointCount());
+		assertEquals(GeoUtils.calculateDistanceKm(18.52, 73.85, 18.62, 73.85), trail.distanceKm(), 1e-6);
+	}
+
+	@Test
+	void keepsCountingDistancePastTheByteLimit() {
+		TripTrail trail = new TripTrail(MIN_STEP_KM, MAX_SPEED_KMH, 200);
+		for (int i = 0; i < 200; i++) {
+			trail.append(18 + i * 0.001, 73, START_MILLIS + 5_000L * i);
+		}
+
+		assertTrue(trail.isTruncated());
+		assertTrue(trail.toBytes().length <= 200);
+		assertEquals(200, trail.pointCount());
+		assertEquals(GeoUtils.calculateDistanceKm(18, 73, 18.199, 73), trail.distanceKm(), 1e-3);
+		assertTrue(TripTrail.decode(trail.toBytes()).size() < 200);
+	}
+
+	@Test
+	void rejectsUnknownVersion() {
+		assertThrows(IllegalArgumentException.class, () -> TripTrail.decode(new byte[]{9, 0, 0, 0}));
+		assertTrue(TripTrail.decode(new byte[0]).isEmpty());
+	}
+}